@@ -0,0 +1,157 @@
+/** Class: BondPercolation.java
+ *
+ *  This class - Bond percolation on an N x N grid. Compare with Percolation.java, which models SITE percolation.
+ *
+ *  Here every site is always there; what is open or closed is each BOND (edge) between two adjacent sites. There are N * (N - 1)
+ *  horizontal bonds, between (i, j) and (i, j + 1), and as many vertical bonds, between (i, j) and (i + 1, j). Opening a bond links its
+ *  two sites. The grid percolates when the open bonds connect the top row to the bottom row.
+ *
+ *  The open / closed status of the bonds is stored in two bitsets (one bit per bond, packed 64 to a long), one for horizontal bonds and
+ *  one for vertical bonds. The linking itself works exactly as in Percolation.java: a WeightedQuickUnionUF, with the top / bottom row
+ *  flags kept only for root IDs.
+ */
+public class BondPercolation {
+
+	/* Most comments are omitted here, except when necessary to outline differences between this class and the Percolation.java class.
+	 * See Percolation.java class comments for the rest. */
+	private final long[] horizontalIsOpen, verticalIsOpen;	//bit h of horizontalIsOpen = horizontal bond h. Same for vertical.
+	private final boolean[] gridIsConnectedToTopRow, gridIsConnectedToBotRow;
+	private final int n, nTimesN, bondsPerDirection;
+	private final WeightedQuickUnionUF uf;
+	private boolean percolates;
+	private int numberOfOpenBonds;
+
+	/**
+	 * 1-arg constructor.
+	 * @param N the number of rows (which is equal to the number of columns) for the square grid. Must be at least 2: a 1 x 1 grid
+	 *        has no bonds at all, so the fraction of open bonds at which it percolates (0 / 0) is undefined.
+	 */
+	public BondPercolation(int N) {
+		if (N < 2) {
+			throw new java.lang.IllegalArgumentException("Cannot create bond percolation grid with fewer than 2 rows / columns.");
+		}
+		n = N;
+		nTimesN = n*n;
+		bondsPerDirection = n * (n - 1);
+		horizontalIsOpen = new long[(bondsPerDirection + 63) / 64];
+		verticalIsOpen = new long[(bondsPerDirection + 63) / 64];
+		gridIsConnectedToTopRow = new boolean[nTimesN];
+		gridIsConnectedToBotRow = new boolean[nTimesN];
+		uf = new WeightedQuickUnionUF(nTimesN);
+
+		/* Unlike with site percolation, every site in the top row is connected to the top row right from the start. */
+		for (int j = 0; j < n; j++) {
+			gridIsConnectedToTopRow[j] = true;
+			gridIsConnectedToBotRow[(n - 1) * n + j] = true;
+		}
+	}
+
+	/**
+	 * Method: numberOfBonds
+	 * @return the total number of bonds, 2 * N * (N - 1). Bonds are numbered 0 to numberOfBonds() - 1 (see openBond()).
+	 */
+	public int numberOfBonds() {
+		return 2 * bondsPerDirection;
+	}
+
+	/**
+	 * Method: openBond
+	 *         Opens a bond given by its number. Bonds 0 to N * (N - 1) - 1 are the horizontal bonds, row by row: bond (i - 1) * (N - 1) + (j - 1)
+	 *         is the one between (i, j) and (i, j + 1). The rest are the vertical bonds, row by row: bond N * (N - 1) + (i - 1) * N + (j - 1)
+	 *         is the one between (i, j) and (i + 1, j). Numbering all the bonds this way makes it easy to open them in a random order.
+	 * @param bond the number of the bond to open.
+	 */
+	public void openBond(int bond) {
+		if (bond < 0 || bond >= 2 * bondsPerDirection) throw new java.lang.IndexOutOfBoundsException();
+		if (bond < bondsPerDirection) {
+			int row = bond / (n - 1);
+			this.open(horizontalIsOpen, bond, row * n + bond % (n - 1), 1);
+		}
+		else {
+			this.open(verticalIsOpen, bond - bondsPerDirection, bond - bondsPerDirection, n);
+		}
+	}
+
+	/**
+	 * Method: openHorizontal
+	 *         Opens the bond between (i, j) and (i, j + 1).
+	 * @param i the row number, between 1 and N.
+	 * @param j the col number, between 1 and N - 1.
+	 */
+	public void openHorizontal(int i, int j) {
+		if (i < 1 || i > n || j < 1 || j > n - 1) throw new java.lang.IndexOutOfBoundsException();
+		this.openBond((i - 1) * (n - 1) + (j - 1));
+	}
+
+	/**
+	 * Method: openVertical
+	 *         Opens the bond between (i, j) and (i + 1, j).
+	 * @param i the row number, between 1 and N - 1.
+	 * @param j the col number, between 1 and N.
+	 */
+	public void openVertical(int i, int j) {
+		if (i < 1 || i > n - 1 || j < 1 || j > n) throw new java.lang.IndexOutOfBoundsException();
+		this.openBond(bondsPerDirection + (i - 1) * n + (j - 1));
+	}
+
+	/**
+	 * Method: open
+	 * @param bits the bitset the bond is in.
+	 * @param bit the bond's bit in the bitset.
+	 * @param id the site at the upper / left end of the bond.
+	 * @param step the difference between the IDs of the sites at the two ends: 1 for a horizontal bond, N for a vertical one.
+	 */
+	private void open(long[] bits, int bit, int id, int step) {
+		if ((bits[bit >>> 6] & (1L << bit)) != 0) return;	//already open
+		bits[bit >>> 6] |= 1L << bit;
+		numberOfOpenBonds++;
+		this.linkTwoNodes(id, id + step);
+	}
+
+	private void linkTwoNodes(int id, int neighborID) {
+		int thisRootID = uf.find(id);
+		int neighborsRootID = uf.find(neighborID);
+		if (thisRootID == neighborsRootID) return;
+		boolean top = gridIsConnectedToTopRow[thisRootID] || gridIsConnectedToTopRow[neighborsRootID];
+		boolean bottom = gridIsConnectedToBotRow[thisRootID] || gridIsConnectedToBotRow[neighborsRootID];
+		int newlyMergedGroupsRootID = uf.unionRoots(thisRootID, neighborsRootID);
+		gridIsConnectedToTopRow[newlyMergedGroupsRootID] = top;
+		gridIsConnectedToBotRow[newlyMergedGroupsRootID] = bottom;
+		if (top && bottom) this.percolates = true;
+	}
+
+	/**
+	 * Method: isBondOpen
+	 * @param bond the number of a bond (see openBond()).
+	 * @return true if the bond is open.
+	 */
+	public boolean isBondOpen(int bond) {
+		if (bond < 0 || bond >= 2 * bondsPerDirection) throw new java.lang.IndexOutOfBoundsException();
+		if (bond < bondsPerDirection) return (horizontalIsOpen[bond >>> 6] & (1L << bond)) != 0;
+		bond -= bondsPerDirection;
+		return (verticalIsOpen[bond >>> 6] & (1L << bond)) != 0;
+	}
+
+	/**
+	 * Method: isFull
+	 * @param i the row location.
+	 * @param j the column location.
+	 * @return true if the site at the given location is connected to the top row by open bonds. Sites in the top row always are.
+	 */
+	public boolean isFull(int i, int j) {
+		if (i < 1 || i > n || j < 1 || j > n) throw new java.lang.IndexOutOfBoundsException();
+		return gridIsConnectedToTopRow[uf.find((i - 1) * n + (j - 1))];
+	}
+
+	public boolean percolates() {
+		return this.percolates;
+	}
+
+	/**
+	 * Method: numberOfOpenBonds
+	 * @return the number of bonds opened so far.
+	 */
+	public int numberOfOpenBonds() {
+		return numberOfOpenBonds;
+	}
+}
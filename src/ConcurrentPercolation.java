@@ -0,0 +1,166 @@
+/** Class: ConcurrentPercolation.java
+ *
+ *  This class - A thread-safe version of Percolation.java, so that several threads can open sites in the same grid at once.
+ *               It has the same public methods as Percolation.java.
+ *
+ *  Percolation.java keeps its top / bottom row flags on the ROOT of each group, and moves them to the new root whenever two groups
+ *  are merged. That can't be done atomically together with the merge itself without a lock. So this class goes back to the
+ *  "virtual nodes" design of Percolation_2UFObjectsSolution_NotAsEfficient.java, with two ConcurrentQuickUnionUF objects
+ *  (one with a virtual top node only, for isFull(), and one with virtual top AND bottom nodes, for percolates()).
+ *  Every step of open() is then a single atomic operation.
+ *
+ *  open() is thread-safe: each site is claimed with a compare-and-set, so it's opened exactly once. A site is marked open
+ *  BEFORE its neighbors are checked, so when two neighboring sites are opened at the same time, at least one of the two
+ *  threads sees the other site open and links them. Hence once a set of open() calls have all returned, every connection
+ *  they made is visible, and percolates() (which is linearizable) reflects them.
+ */
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ConcurrentPercolation implements PercolationModel {
+
+	/* Most comments are omitted here, except when necessary to outline differences between this class and the Percolation.java class.
+	 * See Percolation.java class comments for the rest. */
+	private final AtomicIntegerArray gridIsOpen;	//1 if open, 0 if closed. An atomic array rather than boolean[] so that sites can be claimed with compareAndSet.
+	private final int n, nTimesN, topNodeIndex, bottomNodeIndex;
+	private final ConcurrentQuickUnionUF uf, uf2;	//uf2 has the virtual top node only (no backwash, see isFull()), uf has both virtual nodes.
+	private final AtomicInteger numberOfOpenSites = new AtomicInteger();
+	private volatile boolean percolates;	//once the grid percolates it always will, so this is only ever set from false to true.
+
+	public ConcurrentPercolation(int N) {
+		if (N <= 0) {
+			throw new java.lang.IllegalArgumentException("Cannot create grid with 0 or fewer rows / columns.");
+		}
+		n = N;
+		nTimesN = n*n;
+		topNodeIndex = nTimesN;
+		bottomNodeIndex = nTimesN + 1;
+		gridIsOpen = new AtomicIntegerArray(nTimesN);
+		uf = new ConcurrentQuickUnionUF(nTimesN + 2);
+		uf2 = new ConcurrentQuickUnionUF(nTimesN + 1);
+	}
+
+	private boolean withinPrescribedRange(int x) {
+		return x >= 1 && x <= n;
+	}
+
+	/**
+	 * Method: open
+	 *         Opens the grid located at (row, col). Safe to call from several threads at once.
+	 * @param i the row number, between 1 and N.
+	 * @param j the col number, between 1 and N.
+	 */
+	public void open(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j))) {
+			throw new java.lang.IndexOutOfBoundsException();
+		}
+		int iIndex = i - 1;
+		int jIndex = j - 1;
+		int iD = iIndex * n + jIndex;
+
+		if (!gridIsOpen.compareAndSet(iD, 0, 1)) return;	//already opened, possibly by another thread right now. Nothing more to do.
+		numberOfOpenSites.incrementAndGet();
+
+		if (iIndex == 0) {
+			uf.union(iD, topNodeIndex);
+			uf2.union(iD, topNodeIndex);
+		}
+		if (iIndex == n - 1) uf.union(iD, bottomNodeIndex);	//uf2 does NOT keep track of the bottom virtual node.
+
+		if (iIndex < n - 1) this.linkIfOpen(iD, iD + n);	//south
+		if (iIndex > 0)     this.linkIfOpen(iD, iD - n);	//north
+		if (jIndex > 0)     this.linkIfOpen(iD, iD - 1);	//west
+		if (jIndex < n - 1) this.linkIfOpen(iD, iD + 1);	//east
+	}
+
+	/**
+	 * Method: linkIfOpen
+	 * @param id A given node, which is open.
+	 * @param neighborID An adjacent node, which is linked to id if it is open.
+	 */
+	private void linkIfOpen(int id, int neighborID) {
+		if (gridIsOpen.get(neighborID) == 1) {
+			uf.union(id, neighborID);
+			uf2.union(id, neighborID);
+		}
+	}
+
+	public boolean isOpen(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j)))
+			throw new java.lang.IndexOutOfBoundsException();
+		return gridIsOpen.get((i - 1) * n + (j - 1)) == 1;
+	}
+
+	public boolean isFull(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j)))
+			throw new java.lang.IndexOutOfBoundsException();
+		int iD = (i - 1) * n + (j - 1);
+		return gridIsOpen.get(iD) == 1 && uf2.connected(iD, topNodeIndex);	//uf2, to avoid backwash.
+	}
+
+	/**
+	 * Method: percolates
+	 * @return true if the system percolates. Linearizable: the answer was correct at some instant during the call.
+	 */
+	public boolean percolates()
+	{
+		if (!percolates && uf.connected(bottomNodeIndex, topNodeIndex)) percolates = true;
+		return percolates;
+	}
+
+	/**
+	 * Method: numberOfOpenSites
+	 * @return the number of sites opened so far.
+	 */
+	public int numberOfOpenSites() {
+		return numberOfOpenSites.get();
+	}
+
+	/**
+	 * Method: main
+	 *         Several threads open the sites of one grid, in a random order, until the grid percolates.
+	 *         Run with the grid size N and the number of threads, e.g. java ConcurrentPercolation 2000 4
+	 * @param args
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		final int n = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		/* Shuffle the sites (Fisher-Yates). The threads take turns taking the next site from this shared order. */
+		final int[] order = new int[n * n];
+		for (int k = 0; k < order.length; k++) order[k] = k;
+		java.util.Random random = new java.util.Random();
+		for (int k = order.length - 1; k > 0; k--) {
+			int r = random.nextInt(k + 1);
+			int temp = order[k];
+			order[k] = order[r];
+			order[r] = temp;
+		}
+
+		final ConcurrentPercolation p = new ConcurrentPercolation(n);
+		final AtomicInteger next = new AtomicInteger();
+		long startTime = System.currentTimeMillis();
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(new Runnable() {
+				public void run() {
+					int k;
+					while (!p.percolates() && (k = next.getAndIncrement()) < order.length) {
+						p.open(order[k] / n + 1, order[k] % n + 1);
+					}
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) worker.join();
+		long endTime = System.currentTimeMillis();
+
+		/* The threads stop soon after the grid percolates, so the number of open grids may overshoot the threshold slightly. */
+		System.out.printf("The system now percolates! The number of open grids is %s. (%s%% of all grids)\n",
+				p.numberOfOpenSites(), p.numberOfOpenSites() / (double)(n * n) * 100);
+		System.out.printf("Elapsed time with %s threads: %s millisecs\n", threads, endTime - startTime);
+	}
+}
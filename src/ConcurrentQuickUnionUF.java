@@ -0,0 +1,140 @@
+/****************************************************************************
+ *  Compilation:  javac ConcurrentQuickUnionUF.java
+ *  Execution:    none (see ConcurrentPercolation.java)
+ *  Dependencies: none
+ *
+ *  Lock-free quick union with randomized linking by index and path halving.
+ *
+ ****************************************************************************/
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ *  The <tt>ConcurrentQuickUnionUF</tt> class represents a union-find data structure
+ *  that any number of threads can use at the same time, without locks.
+ *  It supports the same operations as <tt>WeightedQuickUnionUF</tt>.
+ *  <p>
+ *  The parent links are kept in an <tt>AtomicIntegerArray</tt>, and every change to a
+ *  link is made with a single compare-and-set, following Jayanti and Tarjan,
+ *  <i>Randomized Concurrent Set Union and Generalized Wake-Up</i> (PODC 2019):
+ *  <ul>
+ *  <li> Each node gets a random, fixed priority (a random permutation of 0 to N-1).
+ *       <em>union</em> always links the root with the lower priority under the root with the higher one,
+ *       by CAS-ing its parent from itself to the other root. If another thread got there first, it retries.
+ *       Since priorities are random, trees have logarithmic expected height, just as with weighting by size,
+ *       but without a size array that would have to be updated atomically along with the link.
+ *  <li> <em>find</em> never waits for other threads: it walks up the tree, halving the path as it goes
+ *       with a CAS that is allowed to fail (some other thread has then already moved the link up).
+ *       Links only ever move towards the root, so the walk always makes progress.
+ *  <li> <em>connected</em> is linearizable: if the two roots differ, it checks that the first one is still a root,
+ *       and tries again otherwise.
+ *  </ul>
+ */
+public class ConcurrentQuickUnionUF {
+    private final AtomicIntegerArray parent;   // parent[i] = parent of i
+    private final int[] priority;              // priority[i] = random priority of i. never changes
+    private final AtomicInteger count;         // number of groups of nodes
+
+    /**
+     * Initializes an empty union-find data structure with N isolated components 0 through N-1.
+     * @throws java.lang.IllegalArgumentException if N < 0
+     * @param N the number of objects
+     */
+    public ConcurrentQuickUnionUF(int N) {
+        if (N < 0) throw new IllegalArgumentException("N must be nonnegative");
+        count = new AtomicInteger(N);
+        parent = new AtomicIntegerArray(N);
+        priority = new int[N];
+        for (int i = 0; i < N; i++) {
+            parent.set(i, i);	//each node is its own parent
+            priority[i] = i;
+        }
+
+        /* Shuffle the priorities (Fisher-Yates) so that they form a random permutation. */
+        java.util.Random random = new java.util.Random();
+        for (int i = N - 1; i > 0; i--) {
+            int r = random.nextInt(i + 1);
+            int temp = priority[i];
+            priority[i] = priority[r];
+            priority[r] = temp;
+        }
+    }
+
+    /**
+     * Returns the number of groups of Nodes (components).
+     * @return the number of components (between 1 and N)
+     */
+    public int count() {
+        return count.get();
+    }
+
+    /**
+     * Returns the component identifier (AKA, the root) for the component containing <tt>p</tt>.
+     * If other threads are calling union() at the same time, the root returned may stop being a root
+     * immediately afterwards.
+     * @param p the integer representing the Node (AKA site)
+     * @return the component identifier (the "root") for the component containing site <tt>p</tt>
+     * @throws java.lang.IndexOutOfBoundsException unless 0 <= p < N
+     */
+    public int find(int p) {
+        validate(p);
+        while (true) {
+            int up = parent.get(p);
+            if (up == p) return p;	//p is its own parent, so it's the root
+            int upUp = parent.get(up);
+            if (up != upUp) parent.compareAndSet(p, up, upUp);	//path halving. If the CAS fails, another thread already moved the link up
+            p = upUp;
+        }
+    }
+
+    // validate that p is a valid index
+    private void validate(int p) {
+        int N = this.parent.length();
+        if (p < 0 || p >= N) {
+            throw new IndexOutOfBoundsException("index " + p + " is not between 0 and " + N);
+        }
+    }
+
+    /**
+     * Are the two sites <tt>p</tt> and <tt>q</tt> in the same component (AKA in the same group)?
+     * The answer is linearizable, i.e. correct at some instant between the call and the return.
+     * @param p the integer representing one site
+     * @param q the integer representing the other site
+     * @return <tt>true</tt> if the two sites <tt>p</tt> and <tt>q</tt>
+     *         are in the same component, and <tt>false</tt> otherwise
+     * @throws java.lang.IndexOutOfBoundsException unless both 0 <= p < N and 0 <= q < N
+     */
+    public boolean connected(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ) return true;
+            if (parent.get(rootP) == rootP) return false;	//rootP was still a root after rootQ was found, so they were apart at that instant
+        }
+    }
+
+    /**
+     * Merges the component containing site<tt>p</tt> with the component
+     * containing site <tt>q</tt>.
+     * @param p the integer representing one site
+     * @param q the integer representing the other site
+     * @return <tt>true</tt> if this call merged two components, <tt>false</tt> if they were already the same
+     * @throws java.lang.IndexOutOfBoundsException unless both 0 <= p < N and 0 <= q < N
+     */
+    public boolean union(int p, int q) {
+        while (true) {
+            int rootP = find(p);
+            int rootQ = find(q);
+            if (rootP == rootQ) return false;
+
+            // link the root with the lower priority under the other one, provided it is still a root
+            int lower  = (priority[rootP] < priority[rootQ]) ? rootP : rootQ;
+            int higher = (lower == rootP) ? rootQ : rootP;
+            if (parent.compareAndSet(lower, lower, higher)) {
+                count.decrementAndGet();
+                return true;
+            }
+            // else another thread linked lower under something else in the meantime. Try again with the new roots.
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/** Class: HoshenKopelman.java
+ *
+ *  This class - Counts the clusters (groups of connected open sites) of an N x N grid whose open sites are all given at once,
+ *               finds the size of every cluster, and whether the grid percolates, in a single raster scan over the rows.
+ *
+ *  This is the Hoshen-Kopelman algorithm (Hoshen and Kopelman, Phys. Rev. B 14, 3438, 1976). Unlike Percolation.java, which needs
+ *  several arrays of N * N entries, it only ever keeps two rows of labels: the row being scanned and the one above it.
+ *  Each open site looks at its neighbors to the north and to the west only:
+ *
+ *    - neither is open:  the site starts a new cluster, with a new label.
+ *    - one is open:      the site joins that neighbor's cluster.
+ *    - both are open:    the site joins both clusters, which are merged in a small union-find of labels ("equivalence classes").
+ *
+ *  After each row, the labels still in use are renumbered 0, 1, 2, ... A cluster whose label no longer appears in the newest row can
+ *  never grow again, so it is finished: its size goes into the histogram and its label is recycled. A row of N sites holds at most
+ *  (N + 1) / 2 separate clusters, and at most that many new labels can be created while scanning the next row, so the union-find
+ *  never needs more than N + 2 labels. The working memory is therefore O(N), on top of the bitmap itself.
+ */
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class HoshenKopelman {
+	private int numberOfClusters;
+	private boolean percolates;
+	private final TreeMap<Integer, Integer> sizeHistogram = new TreeMap<Integer, Integer>();	//cluster size -> number of clusters of that size
+
+	/* The union-find of labels. parent[] links labels of the same cluster, as in WeightedQuickUnionUF.java. size[] and touchesTop[]
+	 * are only up to date for root labels: the number of sites in the cluster, and whether the cluster has a site in the top row. */
+	private final int[] parent, size;
+	private final boolean[] touchesTop;
+	private int labelsInUse;	//labels 0 to labelsInUse - 1 are in use.
+
+	/**
+	 * 2-arg constructor. Does all the work.
+	 * @param open which sites are open: site iD = (row - 1) * N + (col - 1) is open if bit (iD % 64) of open[iD / 64] is 1
+	 *        (the same layout as Percolation.snapshotOpen()).
+	 * @param N the number of rows (which is equal to the number of columns) for the square grid.
+	 */
+	public HoshenKopelman(long[] open, int N) {
+		if (N <= 0) throw new java.lang.IllegalArgumentException("Cannot create grid with 0 or fewer rows / columns.");
+		if (open.length < ((long) N * N + 63) / 64) throw new java.lang.IllegalArgumentException("Bitmap is too short for an N x N grid.");
+
+		int capacity = N + 2;
+		parent = new int[capacity];
+		size = new int[capacity];
+		touchesTop = new boolean[capacity];
+		int[] above = new int[N];	//labels of the row above (-1 = blocked). For the top row, everything above is blocked.
+		int[] row = new int[N];		//labels of the row being scanned
+		java.util.Arrays.fill(above, -1);
+
+		/* Scratch space for renumber() */
+		int[] newLabel = new int[capacity];
+		int[] newSize = new int[capacity];
+		boolean[] newTouchesTop = new boolean[capacity];
+
+		for (int r = 0; r < N; r++) {
+			for (int c = 0; c < N; c++) {
+				int iD = r * N + c;
+				if ((open[iD >>> 6] & (1L << iD)) == 0) {
+					row[c] = -1;
+					continue;
+				}
+				int north = above[c];
+				int west = (c > 0) ? row[c - 1] : -1;
+				int label;
+				if (north == -1 && west == -1) {	//new cluster
+					label = labelsInUse++;
+					parent[label] = label;
+					size[label] = 0;
+					touchesTop[label] = (r == 0);
+				}
+				else if (west == -1) label = this.find(north);
+				else if (north == -1) label = this.find(west);
+				else label = this.union(north, west);
+				size[label]++;
+				row[c] = label;
+			}
+
+			this.renumber(row, newLabel, newSize, newTouchesTop);
+
+			int[] temp = above;
+			above = row;
+			row = temp;
+		}
+
+		/* Every cluster that is left has a site in the bottom row. If any of them also has a site in the top row, the grid percolates. */
+		for (int label = 0; label < labelsInUse; label++) {
+			if (touchesTop[label]) percolates = true;
+			this.finish(label);
+		}
+	}
+
+	/**
+	 * Method: renumber
+	 *         Renumbers the labels of the given row 0, 1, 2, ... (in the order they appear) so that each cluster has exactly one label,
+	 *         and finishes every cluster that no longer appears in the row. The other arrays are scratch space of the same size as parent[].
+	 */
+	private void renumber(int[] row, int[] newLabel, int[] newSize, boolean[] newTouchesTop) {
+		java.util.Arrays.fill(newLabel, 0, labelsInUse, -1);
+		int newLabelsInUse = 0;
+		for (int c = 0; c < row.length; c++) {
+			if (row[c] == -1) continue;
+			int root = this.find(row[c]);
+			if (newLabel[root] == -1) {
+				newLabel[root] = newLabelsInUse;
+				newSize[newLabelsInUse] = size[root];
+				newTouchesTop[newLabelsInUse] = touchesTop[root];
+				newLabelsInUse++;
+			}
+			row[c] = newLabel[root];
+		}
+
+		/* Roots that didn't get a new label are clusters that have stopped growing. */
+		for (int label = 0; label < labelsInUse; label++) {
+			if (parent[label] == label && newLabel[label] == -1) this.finish(label);
+		}
+
+		labelsInUse = newLabelsInUse;
+		for (int label = 0; label < labelsInUse; label++) {
+			parent[label] = label;
+			size[label] = newSize[label];
+			touchesTop[label] = newTouchesTop[label];
+		}
+	}
+
+	// record the cluster with the given root label, which can't grow any more
+	private void finish(int root) {
+		numberOfClusters++;
+		Integer count = sizeHistogram.get(size[root]);
+		sizeHistogram.put(size[root], (count == null) ? 1 : count + 1);
+	}
+
+	// root of the given label, halving the path on the way (see WeightedQuickUnionUF.find())
+	private int find(int label) {
+		while (label != parent[label]) {
+			parent[label] = parent[parent[label]];
+			label = parent[label];
+		}
+		return label;
+	}
+
+	// merge the clusters of the two given labels. returns the root of the merged cluster
+	private int union(int p, int q) {
+		int rootP = this.find(p);
+		int rootQ = this.find(q);
+		if (rootP == rootQ) return rootP;
+		if (size[rootP] < size[rootQ]) {	//smaller cluster joins the larger one
+			int temp = rootP;
+			rootP = rootQ;
+			rootQ = temp;
+		}
+		parent[rootQ] = rootP;
+		size[rootP] += size[rootQ];
+		touchesTop[rootP] |= touchesTop[rootQ];
+		return rootP;
+	}
+
+	/**
+	 * Method: numberOfClusters
+	 * @return the number of clusters of connected open sites.
+	 */
+	public int numberOfClusters() {
+		return numberOfClusters;
+	}
+
+	/**
+	 * Method: percolates
+	 * @return true if a cluster connects the top row to the bottom row.
+	 */
+	public boolean percolates() {
+		return percolates;
+	}
+
+	/**
+	 * Method: sizeHistogram
+	 * @return a read-only map from each cluster size that occurs to the number of clusters of that size, in increasing order of size.
+	 */
+	public SortedMap<Integer, Integer> sizeHistogram() {
+		return Collections.unmodifiableSortedMap(sizeHistogram);
+	}
+
+	/**
+	 * Method: main
+	 *         Labels a random N x N grid, where each site is open with probability p, and prints the results.
+	 *         e.g. java HoshenKopelman 2000 0.5927
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+		double p = (args.length > 1) ? Double.parseDouble(args[1]) : 0.5927;
+		long[] open = new long[(n * n + 63) / 64];
+		for (int iD = 0; iD < n * n; iD++) {
+			if (Math.random() < p) open[iD >>> 6] |= 1L << iD;
+		}
+
+		long startTime = System.currentTimeMillis();
+		HoshenKopelman hk = new HoshenKopelman(open, n);
+		long endTime = System.currentTimeMillis();
+		int largest = hk.sizeHistogram().isEmpty() ? 0 : hk.sizeHistogram().lastKey();
+		System.out.printf("%s clusters, %s. Largest cluster has %s sites.\n", hk.numberOfClusters(),
+				hk.percolates() ? "percolates" : "does not percolate", largest);
+		System.out.printf("Elapsed time: %s millisecs\n", endTime - startTime);
+	}
+}
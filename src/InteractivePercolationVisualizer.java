@@ -1,7 +1,7 @@
 /****************************************************************************
  *  Compilation:  javac InteractivePercolationVisualizer.java
  *  Execution:    java InteractivePercolationVisualizer N
- *  Dependencies: PercolationVisualizer.java Percolation.java
+ *  Dependencies: PercolationVisualizer.java PercolationFactory.java
  *                StdDraw.java StdOut.java
  *
  *  This program takes the grid size N as a command-line argument.
@@ -9,52 +9,198 @@
  *  After each site is opened, it draws full sites in light blue,
  *  open sites (that aren't full) in white, and blocked sites in black.
  *
+ *  Roll the mouse wheel to zoom in and out around the mouse pointer, and
+ *  drag with the right mouse button to pan. Only the sites in view are
+ *  drawn, so N can be as large as 10000 (with enough heap, e.g. -Xmx4g).
+ *  When more sites are in view than the window has pixels, each pixel
+ *  shows a block of sites, drawn from per-pixel counts of full and open
+ *  sites. A click only updates the counts of the sites it changed, so it
+ *  takes a few milliseconds however large the view is (with Percolation.java;
+ *  other engines rebuild the counts on every click). Zooming or panning
+ *  while that far out rebuilds the counts from every site in view, which
+ *  takes about 1 second for a 6000-by-6000 view and 3 seconds for a
+ *  10000-by-10000 one, once the grid is half open.
+ *
+ *  The program waits for mouse events from StdDraw rather than polling the
+ *  mouse, so it uses no CPU time while idle. Every site along the path of a
+ *  drag is opened, however fast the mouse moves, and the system is only
+ *  redrawn when something has changed.
+ *
+ *  Add -engine=NAME to use another percolation engine than Percolation.java
+ *  (see PercolationFactory.java), e.g. java InteractivePercolationVisualizer 50 -engine=2uf
+ *
  ****************************************************************************/
 
+import java.awt.event.MouseEvent;
+
 public class InteractivePercolationVisualizer {
 
-    public static void main(String[] args) {
+    // each notch of the mouse wheel zooms in or out by this factor
+    private static final double ZOOM = 1.25;
+
+    // never zoom in further than this many sites across
+    private static final int MIN_VIEW = 10;
+
+    private static int N;                   // N-by-N percolation system
+    private static PercolationModel perc;
+
+    // full and open site counts per pixel of the view, when it is downsampled (see PercolationVisualizer.drawViewport())
+    private static final PercolationVisualizer.BlockCounts counts = new PercolationVisualizer.BlockCounts();
+
+    // the view shows the V-by-V block of sites with upper left corner at (row0, col0), both 0-based
+    private static int row0 = 0, col0 = 0, V;
+
+    // the view that is on screen, i.e. the one last drawn (see redraw()). The events are interpreted in it: the user
+    // clicked on that picture, even if row0, col0 and V have changed since (after a zoom or a pan earlier in the same
+    // batch of events) or StdDraw's scale has already been set for the next picture (while it is being drawn)
+    private static int shownRow0, shownCol0, shownV;
+
+    // while panning, the grid position (in sites) that stays under the mouse pointer
+    private static boolean panning = false;
+    private static double anchorX, anchorY;
+
+    // while opening sites by dragging, the last site the mouse was over
+    private static boolean dragging = false;
+    private static int lastI, lastJ;
+
+    public static void main(String[] args) throws InterruptedException {
         // N-by-N percolation system (read from command-line, default = 10)
-        int N = 10;
+        args = PercolationFactory.useEngineFlag(args);
+        N = 10;
         if (args.length == 1) {
         	N = Integer.parseInt(args[0]);
-        	if (N < 10 || N > 100) throw new RuntimeException("ERROR: Please input an integer between 10 and 100.");
+        	if (N < 10 || N > 10000) throw new RuntimeException("ERROR: Please input an integer between 10 and 10000.");
         }
+        V = N;
 
         // repeatedly open site specified my mouse click and draw resulting system
         StdOut.println(N);
 
+        int[] argb = new int[512*512];  // scratch space for PercolationVisualizer.drawViewport(), at most one int per window pixel
+
+        StdDraw.enableMouseEvents();
         StdDraw.show(0);
-        Percolation perc = new Percolation(N);
-        PercolationVisualizer.draw(perc, N);
-        StdDraw.show(0);
+        perc = PercolationFactory.create(N);
+        redraw(argb);
 
         while (true) {
+            // wait for the next mouse event, then handle any others that arrived in the meantime before drawing
+            boolean changed = handle(StdDraw.nextMouseEvent());
+            for (StdDraw.MouseInput e = StdDraw.pollMouseEvent(); e != null; e = StdDraw.pollMouseEvent()) {
+                changed |= handle(e);
+            }
+
+            // draw the part of the N-by-N percolation system that is in view, only if something changed
+            if (changed) redraw(argb);
+        }
+    }
 
-            // detected mouse click
-            if (StdDraw.mousePressed()) {
+    // draw the part of the N-by-N percolation system that is in view, and remember which view is on screen
+    private static void redraw(int[] argb) {
+        PercolationVisualizer.drawViewport(perc, N, row0, col0, V, counts, argb);
+        StdDraw.show(0);
+        shownRow0 = row0;
+        shownCol0 = col0;
+        shownV = V;
+    }
+
+    // update the system and the view for one mouse event. returns true if they need to be redrawn
+    private static boolean handle(StdDraw.MouseInput e) {
+        // the mouse position, in sites from the left and top of the view that was on screen, converted with the
+        // scale that drawViewport() set for it (a 5% border on each side)
+        double x = e.x(-.05*shownV, 1.05*shownV);
+        double y = shownV - e.y(-.05*shownV, 1.05*shownV);
 
-                // screen coordinates
-                double x = StdDraw.mouseX();
-                double y = StdDraw.mouseY();
+        // the same position in the whole grid: row i, column j, and as a fraction of the window from the left and top
+        int i = (int) (shownRow0 + 1 + Math.floor(y));
+        int j = (int) (shownCol0 + 1 + Math.floor(x));
+        double fx = x / shownV, fy = y / shownV;
 
-                // convert to row i, column j
-                int i = (int) (N - Math.floor(y));
-                int j = (int) (1 + Math.floor(x));
+        switch (e.id) {
+            case MouseEvent.MOUSE_WHEEL:
+                return zoom(shownCol0 + x, shownRow0 + y, fx, fy, e.wheelRotation);
 
-                // open site (i, j) provided it's in bounds
-                if (i >= 1 && i <= N && j >= 1 && j <= N) {
-                    if (!perc.isOpen(i, j)) {
-                        StdOut.println(i + " " + j);
-                    }
-                    perc.open(i, j);
+            case MouseEvent.MOUSE_PRESSED:
+                if (e.button == MouseEvent.BUTTON3) {
+                    anchorX = shownCol0 + x;
+                    anchorY = shownRow0 + y;
+                    panning = true;
+                    return false;
                 }
+                dragging = true;
+                lastI = i;
+                lastJ = j;
+                return open(i, j);
 
-                // draw N-by-N percolation system
-                StdDraw.show(0);
-                PercolationVisualizer.draw(perc, N);
-            }
-            StdDraw.show(20);
+            case MouseEvent.MOUSE_DRAGGED:
+                if (panning) return pan(fx, fy);
+                if (!dragging) return false;   // drag started outside the window
+                boolean changed = openLine(lastI, lastJ, i, j);
+                lastI = i;
+                lastJ = j;
+                return changed;
+
+            case MouseEvent.MOUSE_RELEASED:
+                panning = false;
+                dragging = false;
+                return false;
+
+            default:
+                return false;
+        }
+    }
+
+    // zoom by the given number of notches, keeping the grid position under the mouse pointer fixed.
+    // (gridX, gridY) is that position, in sites from the left and top of the grid, and (fx, fy) is where the
+    // pointer is in the window, as a fraction of the window's width and height from the left and top
+    private static boolean zoom(double gridX, double gridY, double fx, double fy, int rotation) {
+        int newV = (int) Math.round(V * Math.pow(ZOOM, rotation));
+        newV = Math.max(Math.min(newV, N), Math.min(MIN_VIEW, N));
+        if (newV == V) return false;
+        col0 = clamp((int) Math.round(gridX - fx * newV), N - newV);
+        row0 = clamp((int) Math.round(gridY - fy * newV), N - newV);
+        V = newV;
+        return true;
+    }
+
+    // move the view so that the grid position where the drag started is under the mouse pointer.
+    // (fx, fy) is where the pointer is in the window, as a fraction of the window's width and height
+    private static boolean pan(double fx, double fy) {
+        int newCol0 = clamp((int) Math.round(anchorX - fx * V), N - V);
+        int newRow0 = clamp((int) Math.round(anchorY - fy * V), N - V);
+        if (newCol0 == col0 && newRow0 == row0) return false;
+        col0 = newCol0;
+        row0 = newRow0;
+        return true;
+    }
+
+    // open every site on the line from (i0, j0) to (i1, j1), using Bresenham's line algorithm,
+    // so that no sites are skipped when the mouse moves more than one site between events
+    private static boolean openLine(int i0, int j0, int i1, int j1) {
+        boolean changed = false;
+        int di = Math.abs(i1 - i0), dj = Math.abs(j1 - j0);
+        int si = (i0 < i1) ? 1 : -1, sj = (j0 < j1) ? 1 : -1;
+        int error = dj - di;
+        while (true) {
+            changed |= open(i0, j0);
+            if (i0 == i1 && j0 == j1) return changed;
+            int twice = 2 * error;
+            if (twice > -di) { error -= di; j0 += sj; }
+            if (twice <  dj) { error += dj; i0 += si; }
         }
     }
+
+    // open site (i, j) provided it's in bounds, in the view on screen and not open yet. returns true if it was opened
+    private static boolean open(int i, int j) {
+        if (i <= shownRow0 || i > shownRow0 + shownV || j <= shownCol0 || j > shownCol0 + shownV || perc.isOpen(i, j)) return false;
+        StdOut.println(i + " " + j);
+        perc.open(i, j);
+        counts.opened(perc, i, j);
+        return true;
+    }
+
+    // x, but no less than 0 and no more than max
+    private static int clamp(int x, int max) {
+        return Math.max(0, Math.min(x, max));
+    }
 }
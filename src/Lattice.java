@@ -0,0 +1,203 @@
+/** Class: Lattice.java
+ *
+ *  This class - Describes the shape of a grid for LatticePercolation.java: its dimensions, how its sites are numbered, and which sites
+ *               are neighbors. Create one with one of the static methods: rectangle(), cubic(), triangular() or hexagonal().
+ *
+ *  Every lattice is stored with a one-site-thick border of "sentinel" sites around it, which are never opened. So for a 2D lattice with
+ *  M rows and N columns, site (row, col) (both starting at 1, as in Percolation.java) has the ID
+ *
+ *    row * (N + 2) + col
+ *
+ *  and the IDs of its neighbors are found by adding fixed offsets, e.g. +1 (east), -1 (west), +(N + 2) (south) and -(N + 2) (north)
+ *  for a rectangle. Thanks to the border, this gives a valid ID even for a site on the edge of the lattice, so LatticePercolation.open()
+ *  can check all the neighbors in a tight loop over a precomputed table of offsets, without any "is there a neighbor?" branches.
+ *
+ *  The lattice percolates when a cluster connects the top to the bottom: the first and last rows of a 2D lattice, or the first and
+ *  last layers of a 3D one.
+ */
+public final class Lattice {
+	private final String name;
+	private final int layers, rows, cols;	//layers = 1 for 2D lattices
+	private final boolean is3D;				//3D lattices have a border layer above and below, 2D ones don't.
+	private final int rowStride, layerStride, sites;
+	private final int topStart, topEnd, bottomStart, bottomEnd;	//IDs in [topStart, topEnd) are in the top row / layer, same for bottom.
+	private final int[][] offsets;	//offsets[0] = neighbor offsets. Hexagonal lattices have a 2nd table, see offsets(int) method.
+
+	private Lattice(String name, int layers, int rows, int cols, boolean is3D, int[][] offsetsInUnits) {
+		if (layers <= 0 || rows <= 0 || cols <= 0) {
+			throw new java.lang.IllegalArgumentException("Cannot create lattice with 0 or fewer layers / rows / columns.");
+		}
+		this.name = name;
+		this.layers = layers;
+		this.rows = rows;
+		this.cols = cols;
+		this.is3D = is3D;
+		rowStride = cols + 2;
+		layerStride = (rows + 2) * rowStride;
+		if (is3D) {
+			sites = (layers + 2) * layerStride;
+			topStart = layerStride;						//layer 1
+			bottomStart = layers * layerStride;			//layer L
+			topEnd = topStart + layerStride;
+			bottomEnd = bottomStart + layerStride;
+		}
+		else {
+			sites = layerStride;
+			topStart = rowStride;						//row 1
+			bottomStart = rows * rowStride;				//row M
+			topEnd = topStart + rowStride;
+			bottomEnd = bottomStart + rowStride;
+		}
+
+		/* Convert each {layers, rows, cols} step into an ID offset, once and for all. */
+		offsets = new int[offsetsInUnits.length][];
+		for (int t = 0; t < offsetsInUnits.length; t++) {
+			offsets[t] = new int[offsetsInUnits[t].length / 3];
+			for (int k = 0; k < offsets[t].length; k++) {
+				offsets[t][k] = offsetsInUnits[t][3*k] * layerStride + offsetsInUnits[t][3*k + 1] * rowStride + offsetsInUnits[t][3*k + 2];
+			}
+		}
+	}
+
+	/**
+	 * Method: rectangle
+	 * @return an M x N lattice of squares, where each site has 4 neighbors (north, south, west and east), as in Percolation.java.
+	 */
+	public static Lattice rectangle(int M, int N) {
+		return new Lattice(M + " x " + N + " square", 1, M, N, false, new int[][] {
+			{ 0, 1, 0,   0, -1, 0,   0, 0, -1,   0, 0, 1 } });
+	}
+
+	/**
+	 * Method: cubic
+	 * @return an L x M x N lattice of cubes, where each site has 6 neighbors (the 4 in its own layer, plus the one above and the one below).
+	 */
+	public static Lattice cubic(int L, int M, int N) {
+		return new Lattice(L + " x " + M + " x " + N + " cubic", L, M, N, true, new int[][] {
+			{ 0, 1, 0,   0, -1, 0,   0, 0, -1,   0, 0, 1,   1, 0, 0,   -1, 0, 0 } });
+	}
+
+	/**
+	 * Method: triangular
+	 * @return an M x N triangular lattice, where each site has 6 neighbors. It's stored like a rectangle whose rows are sheared:
+	 *         besides its 4 neighbors in the rectangle, site (row, col) is adjacent to (row - 1, col + 1) and (row + 1, col - 1).
+	 */
+	public static Lattice triangular(int M, int N) {
+		return new Lattice(M + " x " + N + " triangular", 1, M, N, false, new int[][] {
+			{ 0, 1, 0,   0, -1, 0,   0, 0, -1,   0, 0, 1,   0, -1, 1,   0, 1, -1 } });
+	}
+
+	/**
+	 * Method: hexagonal
+	 * @return an M x N hexagonal (honeycomb) lattice, where each site has 3 neighbors. It's stored as a "brick wall": every site is
+	 *         adjacent to its west and east neighbors, plus its south neighbor if row + col is even, or its north neighbor if it's odd.
+	 */
+	public static Lattice hexagonal(int M, int N) {
+		return new Lattice(M + " x " + N + " hexagonal", 1, M, N, false, new int[][] {
+			{ 0, 1, 0,   0, 0, -1,   0, 0, 1 },		//row + col even
+			{ 0, -1, 0,  0, 0, -1,   0, 0, 1 } });	//row + col odd
+	}
+
+	/**
+	 * Method: offsets
+	 *         The neighbors of a site are the sites whose IDs are site + offset, for each offset in the table returned.
+	 *         The table is the same for every site, except on a hexagonal lattice, where it depends on whether row + col is even or odd.
+	 *         (The border adds 1 to both row and col, so it doesn't change whether their sum is even or odd.)
+	 * @param site the ID of a site.
+	 * @return the table of offsets. Do not modify it.
+	 */
+	public int[] offsets(int site) {
+		if (offsets.length == 1) return offsets[0];
+		return offsets[((site / rowStride) + (site % rowStride)) & 1];
+	}
+
+	/**
+	 * Method: maxNeighbors
+	 * @return the largest number of neighbors any site has.
+	 */
+	public int maxNeighbors() {
+		return offsets[0].length;
+	}
+
+	/**
+	 * Method: index
+	 * @param row the row number, between 1 and M.
+	 * @param col the col number, between 1 and N.
+	 * @return the ID of site (row, col) of a 2D lattice.
+	 */
+	public int index(int row, int col) {
+		return this.index(1, row, col);
+	}
+
+	/**
+	 * Method: index
+	 * @param layer the layer number, between 1 and L. Must be 1 for a 2D lattice.
+	 * @param row the row number, between 1 and M.
+	 * @param col the col number, between 1 and N.
+	 * @return the ID of site (layer, row, col).
+	 */
+	public int index(int layer, int row, int col) {
+		if (layer < 1 || layer > layers || row < 1 || row > rows || col < 1 || col > cols) {
+			throw new java.lang.IndexOutOfBoundsException();
+		}
+		return (is3D ? layer * layerStride : 0) + row * rowStride + col;
+	}
+
+	/**
+	 * Method: isInterior
+	 * @param site any int.
+	 * @return true if site is the ID of a site of the lattice, i.e. it is between 0 and sites() - 1 and NOT in the border.
+	 */
+	public boolean isInterior(int site) {
+		if (site < 0 || site >= sites) return false;
+		int col = site % rowStride;
+		int row = (site % layerStride) / rowStride;
+		int layer = site / layerStride;	//always 0 for a 2D lattice, which has no border layers.
+		return col >= 1 && col <= cols && row >= 1 && row <= rows && (is3D ? layer >= 1 && layer <= layers : true);
+	}
+
+	/**
+	 * Method: isTop
+	 * @param site the ID of a site that is NOT in the border.
+	 * @return true if the site is in the top row (2D) or layer (3D).
+	 */
+	public boolean isTop(int site) {
+		return site >= topStart && site < topEnd;
+	}
+
+	/**
+	 * Method: isBottom
+	 * @param site the ID of a site that is NOT in the border.
+	 * @return true if the site is in the bottom row (2D) or layer (3D).
+	 */
+	public boolean isBottom(int site) {
+		return site >= bottomStart && site < bottomEnd;
+	}
+
+	/**
+	 * Method: sites
+	 * @return the number of IDs, including the border. Arrays indexed by ID need this length.
+	 */
+	public int sites() {
+		return sites;
+	}
+
+	/**
+	 * Method: interiorSites
+	 * @return the IDs of all the sites that are NOT in the border, in increasing order.
+	 */
+	public int[] interiorSites() {
+		int[] interior = new int[layers * rows * cols];
+		int k = 0;
+		for (int layer = 1; layer <= layers; layer++)
+			for (int row = 1; row <= rows; row++)
+				for (int col = 1; col <= cols; col++)
+					interior[k++] = this.index(layer, row, col);
+		return interior;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
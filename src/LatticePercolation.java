@@ -0,0 +1,121 @@
+/** Class: LatticePercolation.java
+ *
+ *  This class - Same as Percolation.java, but for any Lattice (rectangular, cubic, triangular or hexagonal) rather than an N x N square.
+ *               Sites are identified by their IDs in the lattice (see Lattice.index() methods).
+ *
+ *  open() checks the neighbors of a site with a tight loop over the lattice's precomputed table of neighbor offsets, with no branches
+ *  for the edges of the lattice: the lattice has a border of sentinel sites that are never opened (see Lattice.java).
+ */
+public class LatticePercolation {
+
+	/* Most comments are omitted here, except when necessary to outline differences between this class and the Percolation.java class.
+	 * See Percolation.java class comments for the rest. All arrays are indexed by ID, so they include the border. */
+	private final Lattice lattice;
+	private final boolean[] gridIsOpen, gridIsConnectedToTopRow, gridIsConnectedToBotRow;
+	private final WeightedQuickUnionUF uf;
+	private boolean percolates;
+	private int numberOfOpenSites;
+
+	/**
+	 * 1-arg constructor.
+	 * @param lattice the shape of the grid. Initially, all its sites are closed.
+	 */
+	public LatticePercolation(Lattice lattice) {
+		this.lattice = lattice;
+		gridIsOpen = new boolean[lattice.sites()];
+		gridIsConnectedToTopRow = new boolean[lattice.sites()];
+		gridIsConnectedToBotRow = new boolean[lattice.sites()];
+		uf = new WeightedQuickUnionUF(lattice.sites());
+	}
+
+	/**
+	 * Method: open
+	 * @param site the ID of the site to open. Must not be in the border (see Lattice.interiorSites()).
+	 * @throws IndexOutOfBoundsException if site is in the border or is not an ID of the lattice at all. Opening a border
+	 *         site would break the assumption that they are never open, and let clusters connect across the edges.
+	 */
+	public void open(int site) {
+		if (!lattice.isInterior(site)) {
+			throw new java.lang.IndexOutOfBoundsException("Site " + site + " is not an interior site of the " + lattice + " lattice.");
+		}
+		if (gridIsOpen[site]) return;
+		gridIsOpen[site] = true;
+		numberOfOpenSites++;
+		if (lattice.isTop(site)) gridIsConnectedToTopRow[site] = true;
+		if (lattice.isBottom(site)) gridIsConnectedToBotRow[site] = true;
+		if (gridIsConnectedToTopRow[site] && gridIsConnectedToBotRow[site]) percolates = true;	//a lattice only one row / layer deep
+
+		/* No need to check that each neighbor exists: the border sites exist and are never open. */
+		for (int offset : lattice.offsets(site)) {
+			if (gridIsOpen[site + offset]) this.linkTwoNodes(site, site + offset);
+		}
+	}
+
+	private void linkTwoNodes(int id, int neighborID) {
+		int thisRootID = uf.find(id);
+		int neighborsRootID = uf.find(neighborID);
+		if (thisRootID == neighborsRootID) return;
+		boolean top = gridIsConnectedToTopRow[thisRootID] || gridIsConnectedToTopRow[neighborsRootID];
+		boolean bottom = gridIsConnectedToBotRow[thisRootID] || gridIsConnectedToBotRow[neighborsRootID];
+		int newlyMergedGroupsRootID = uf.unionRoots(thisRootID, neighborsRootID);
+		gridIsConnectedToTopRow[newlyMergedGroupsRootID] = top;
+		gridIsConnectedToBotRow[newlyMergedGroupsRootID] = bottom;
+		if (top && bottom) percolates = true;
+	}
+
+	/**
+	 * Method: isOpen
+	 * @param site the ID of a site.
+	 * @return true if the site is open.
+	 */
+	public boolean isOpen(int site) {
+		return gridIsOpen[site];
+	}
+
+	/**
+	 * Method: isFull
+	 * @param site the ID of a site.
+	 * @return true if the site is open and connected to the top row (2D) or layer (3D).
+	 */
+	public boolean isFull(int site) {
+		return gridIsOpen[site] && gridIsConnectedToTopRow[uf.find(site)];
+	}
+
+	public boolean percolates() {
+		return percolates;
+	}
+
+	public int numberOfOpenSites() {
+		return numberOfOpenSites;
+	}
+
+	/**
+	 * Method: main (optional, for testing).
+	 *         Estimates the site percolation threshold of each kind of lattice, opening sites in random order until it percolates.
+	 *         Known values for large lattices: square 0.5927, triangular 0.5, hexagonal 0.6970, cubic 0.3116.
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int t = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+		Lattice[] lattices = { Lattice.rectangle(256, 256), Lattice.triangular(256, 256), Lattice.hexagonal(256, 256), Lattice.cubic(48, 48, 48) };
+		java.util.Random random = new java.util.Random();
+		for (Lattice lattice : lattices) {
+			long startTime = System.currentTimeMillis();
+			int[] order = lattice.interiorSites();
+			double sum = 0;
+			for (int trial = 0; trial < t; trial++) {
+				for (int k = order.length - 1; k > 0; k--) {	//Fisher-Yates shuffle
+					int r = random.nextInt(k + 1);
+					int temp = order[k];
+					order[k] = order[r];
+					order[r] = temp;
+				}
+				LatticePercolation p = new LatticePercolation(lattice);
+				for (int k = 0; !p.percolates(); k++) p.open(order[k]);
+				sum += p.numberOfOpenSites() / (double) order.length;
+			}
+			long endTime = System.currentTimeMillis();
+			System.out.printf("%s: mean threshold %.4f over %s trials (%s millisecs)\n", lattice, sum / t, t, endTime - startTime);
+		}
+	}
+}
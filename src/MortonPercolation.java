@@ -0,0 +1,179 @@
+/** Class: MortonPercolation.java
+ *
+ *  This class - Same as Percolation.java, with the same public methods, but the site IDs (the indices into the state arrays and into
+ *               the union find object) follow a cache-friendly layout instead of row after row.
+ *
+ *  In Percolation.java, site (i, j) has ID (i - 1) * N + (j - 1), so its north and south neighbors are N IDs away. For a large N
+ *  those are on other cache lines (and other memory pages), so most of open()'s neighbor checks miss the cache.
+ *
+ *  Here the grid is cut into 64 x 64 tiles. The tiles are numbered row after row, and each tile owns a block of 64 * 64 = 4096
+ *  consecutive IDs. Inside a tile, the sites are numbered in Z-order (Morton order): the ID's bits are the row's and the column's
+ *  bits interleaved, so e.g. the 2 x 2, 4 x 4, 8 x 8 squares of sites all get consecutive IDs. Sites that are close in the grid are
+ *  then usually close in memory, in all 4 directions. Tiling (rather than a single Z-order curve over the whole grid) only pads the
+ *  grid to the next multiple of 64 rather than to the next power of 2, which could have almost quadrupled the memory.
+ *
+ *  See main() for a benchmark against Percolation.java and the row-by-row PaddedPercolation.java.
+ */
+public class MortonPercolation implements PercolationModel {
+
+	private static final int TILE_BITS = 6, TILE_SIZE = 1 << TILE_BITS, TILE_MASK = TILE_SIZE - 1;
+
+	/* SPREAD[x] = the 6 bits of x spread out to the even bits: abcdef -> 0a0b0c0d0e0f. */
+	private static final int[] SPREAD = new int[TILE_SIZE];
+	static {
+		for (int x = 0; x < TILE_SIZE; x++) {
+			int s = x;
+			s = (s | (s << 8)) & 0x00FF00FF;
+			s = (s | (s << 4)) & 0x0F0F0F0F;
+			s = (s | (s << 2)) & 0x33333333;
+			s = (s | (s << 1)) & 0x55555555;
+			SPREAD[x] = s;
+		}
+	}
+
+	/* Most comments are omitted here, except when necessary to outline differences between this class and the Percolation.java class.
+	 * See Percolation.java class comments for the rest. */
+	private final boolean[] gridIsOpen, gridIsConnectedToTopRow, gridIsConnectedToBotRow;
+	private final int n, tilesPerRow;
+	private final WeightedQuickUnionUF uf;
+	private boolean percolates;
+	private int numberOfOpenSites;
+
+	public MortonPercolation(int N) {
+		if (N <= 0) {
+			throw new java.lang.IllegalArgumentException("Cannot create grid with 0 or fewer rows / columns.");
+		}
+		n = N;
+		tilesPerRow = (n + TILE_MASK) >> TILE_BITS;
+		int sites = tilesPerRow * tilesPerRow * TILE_SIZE * TILE_SIZE;	//The padding sites are never opened.
+		gridIsOpen = new boolean[sites];
+		gridIsConnectedToTopRow = new boolean[sites];
+		gridIsConnectedToBotRow = new boolean[sites];
+		uf = new WeightedQuickUnionUF(sites);
+	}
+
+	/**
+	 * Method: index
+	 * @param row 0 based row
+	 * @param col 0 based column
+	 * @return the ID of the site: the tile's first ID plus the Z-order position inside the tile.
+	 */
+	private int index(int row, int col) {
+		int tile = (row >> TILE_BITS) * tilesPerRow + (col >> TILE_BITS);
+		return (tile << (2 * TILE_BITS)) | (SPREAD[row & TILE_MASK] << 1) | SPREAD[col & TILE_MASK];
+	}
+
+	private boolean withinPrescribedRange(int x) {
+		return x >= 1 && x <= n;
+	}
+
+	public void open(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j))) {
+			throw new java.lang.IndexOutOfBoundsException();
+		}
+		int row = i - 1, col = j - 1;
+		int iD = this.index(row, col);
+		if (gridIsOpen[iD]) return;
+		gridIsOpen[iD] = true;
+		numberOfOpenSites++;
+		gridIsConnectedToTopRow[iD] = (row == 0);
+		gridIsConnectedToBotRow[iD] = (row == n - 1);
+		if (n == 1) this.percolates = true;
+
+		if (row != n - 1) this.linkIfOpen(iD, this.index(row + 1, col));	//south
+		if (row != 0)     this.linkIfOpen(iD, this.index(row - 1, col));	//north
+		if (col != 0)     this.linkIfOpen(iD, this.index(row, col - 1));	//west
+		if (col != n - 1) this.linkIfOpen(iD, this.index(row, col + 1));	//east
+	}
+
+	private void linkIfOpen(int id, int neighborID) {
+		if (!gridIsOpen[neighborID]) return;
+		int thisRootID = uf.find(id);
+		int neighborsRootID = uf.find(neighborID);
+		if (thisRootID == neighborsRootID) return;
+		boolean top = gridIsConnectedToTopRow[thisRootID] || gridIsConnectedToTopRow[neighborsRootID];
+		boolean bottom = gridIsConnectedToBotRow[thisRootID] || gridIsConnectedToBotRow[neighborsRootID];
+		int newlyMergedGroupsRootID = uf.unionRoots(thisRootID, neighborsRootID);
+		gridIsConnectedToTopRow[newlyMergedGroupsRootID] = top;
+		gridIsConnectedToBotRow[newlyMergedGroupsRootID] = bottom;
+		if (top && bottom) this.percolates = true;
+	}
+
+	public boolean isOpen(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j)))
+			throw new java.lang.IndexOutOfBoundsException();
+		return gridIsOpen[this.index(i - 1, j - 1)];
+	}
+
+	public boolean isFull(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j))) throw new java.lang.IndexOutOfBoundsException();
+		int iD = this.index(i - 1, j - 1);
+		return gridIsOpen[iD] && gridIsConnectedToTopRow[uf.find(iD)];
+	}
+
+	public boolean percolates()
+	{
+		return this.percolates;
+	}
+
+	/**
+	 * Method: numberOfOpenSites
+	 * @return the number of sites opened so far.
+	 */
+	public int numberOfOpenSites() {
+		return numberOfOpenSites;
+	}
+
+	/**
+	 * Method: main
+	 *         Benchmark. Opens sites of an N x N grid (N = 4096 by default) in the same random order with Percolation.java,
+	 *         PaddedPercolation.java (same code as this class, but row by row) and this class, until the grid percolates,
+	 *         several times each (the first rounds warm up the JIT compiler), and prints the time per open() call.
+	 *         Needs a large heap for a large N, e.g. java -Xmx2g MortonPercolation 4096
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 4096;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+
+		int[] order = new int[n * n];
+		for (int k = 0; k < order.length; k++) order[k] = k;
+		java.util.Random random = new java.util.Random();
+		for (int k = order.length - 1; k > 0; k--) {	//Fisher-Yates shuffle
+			int r = random.nextInt(k + 1);
+			int temp = order[k];
+			order[k] = order[r];
+			order[r] = temp;
+		}
+
+		for (int round = 1; round <= rounds; round++) {
+			Percolation p = new Percolation(n);
+			long startTime = System.nanoTime();
+			int opened = 0;
+			while (!p.percolates()) {
+				int k = order[opened++];
+				p.open(k / n + 1, k % n + 1);
+			}
+			long percolationTime = System.nanoTime() - startTime;
+			p = null;
+
+			PaddedPercolation pp = new PaddedPercolation(n);
+			startTime = System.nanoTime();
+			for (int s = 0; s < opened; s++) pp.open(order[s] / n + 1, order[s] % n + 1);
+			long paddedTime = System.nanoTime() - startTime;
+			pp = null;
+
+			MortonPercolation mp = new MortonPercolation(n);
+			startTime = System.nanoTime();
+			for (int s = 0; s < opened; s++) mp.open(order[s] / n + 1, order[s] % n + 1);
+			long mortonTime = System.nanoTime() - startTime;
+			mp = null;
+
+			System.out.printf("Round %s (%s opens): Percolation %.1f ns/open, PaddedPercolation %.1f ns/open, MortonPercolation %.1f ns/open\n",
+					round, opened, percolationTime / (double) opened, paddedTime / (double) opened, mortonTime / (double) opened);
+		}
+	}
+}
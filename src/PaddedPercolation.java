@@ -0,0 +1,136 @@
+/** Class: PaddedPercolation.java
+ *
+ *  This class - Same as Percolation.java, with the same public methods, but with the N x N grid stored inside an (N + 2) x (N + 2)
+ *               array whose outermost rows and columns are a border of "sentinel" sites that are never opened.
+ *
+ *  Percolation.open() has to check, for each of the 4 neighbors, whether the neighbor exists at all (is the site on an edge?) before
+ *  checking whether it is open. Those edge checks are conditional branches that depend on the site, so the CPU mispredicts some of them.
+ *  With the border, every site has 4 neighbors in the array, so the edge checks disappear: open() just loads the 4 neighbors' statuses.
+ *  And since the row and col numbers start at 1, which is exactly where the border pushes the grid to, the ID of site (i, j) is
+ *  simply i * (N + 2) + j, with no "- 1"s.
+ *
+ *  See main() for a benchmark against Percolation.java.
+ */
+public class PaddedPercolation implements PercolationModel {
+
+	/* Most comments are omitted here, except when necessary to outline differences between this class and the Percolation.java class.
+	 * See Percolation.java class comments for the rest. All arrays have (N + 2) * (N + 2) entries, including the border. */
+	private final boolean[] gridIsOpen, gridIsConnectedToTopRow, gridIsConnectedToBotRow;
+	private final int n, stride;	//stride = N + 2 = the number of IDs from one row to the next.
+	private final WeightedQuickUnionUF uf;
+	private boolean percolates;
+	private int numberOfOpenSites;
+
+	public PaddedPercolation(int N) {
+		if (N <= 0) {
+			throw new java.lang.IllegalArgumentException("Cannot create grid with 0 or fewer rows / columns.");
+		}
+		n = N;
+		stride = n + 2;
+		gridIsOpen = new boolean[stride * stride];
+		gridIsConnectedToTopRow = new boolean[stride * stride];
+		gridIsConnectedToBotRow = new boolean[stride * stride];
+		uf = new WeightedQuickUnionUF(stride * stride);
+	}
+
+	private boolean withinPrescribedRange(int x) {
+		return x >= 1 && x <= n;
+	}
+
+	public void open(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j))) {
+			throw new java.lang.IndexOutOfBoundsException();
+		}
+		int iD = i * stride + j;
+		if (gridIsOpen[iD]) return;
+		gridIsOpen[iD] = true;
+		numberOfOpenSites++;
+		gridIsConnectedToTopRow[iD] = (i == 1);
+		gridIsConnectedToBotRow[iD] = (i == n);
+		if (n == 1) this.percolates = true;
+
+		/* No need to check that the neighbors exist: the border sites exist and are never open. */
+		if (gridIsOpen[iD + stride]) this.linkTwoNodes(iD, iD + stride);	//south
+		if (gridIsOpen[iD - stride]) this.linkTwoNodes(iD, iD - stride);	//north
+		if (gridIsOpen[iD - 1])      this.linkTwoNodes(iD, iD - 1);		//west
+		if (gridIsOpen[iD + 1])      this.linkTwoNodes(iD, iD + 1);		//east
+	}
+
+	private void linkTwoNodes(int id, int neighborID) {
+		int thisRootID = uf.find(id);
+		int neighborsRootID = uf.find(neighborID);
+		if (thisRootID == neighborsRootID) return;
+		boolean top = gridIsConnectedToTopRow[thisRootID] || gridIsConnectedToTopRow[neighborsRootID];
+		boolean bottom = gridIsConnectedToBotRow[thisRootID] || gridIsConnectedToBotRow[neighborsRootID];
+		int newlyMergedGroupsRootID = uf.unionRoots(thisRootID, neighborsRootID);
+		gridIsConnectedToTopRow[newlyMergedGroupsRootID] = top;
+		gridIsConnectedToBotRow[newlyMergedGroupsRootID] = bottom;
+		if (top && bottom) this.percolates = true;
+	}
+
+	public boolean isOpen(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j)))
+			throw new java.lang.IndexOutOfBoundsException();
+		return gridIsOpen[i * stride + j];
+	}
+
+	public boolean isFull(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j))) throw new java.lang.IndexOutOfBoundsException();
+		int iD = i * stride + j;
+		return gridIsOpen[iD] && gridIsConnectedToTopRow[uf.find(iD)];
+	}
+
+	public boolean percolates()
+	{
+		return this.percolates;
+	}
+
+	/**
+	 * Method: numberOfOpenSites
+	 * @return the number of sites opened so far.
+	 */
+	public int numberOfOpenSites() {
+		return numberOfOpenSites;
+	}
+
+	/**
+	 * Method: main
+	 *         Benchmark. Opens ALL the sites of an N x N grid, in the same random order, with Percolation.java and with this class,
+	 *         several times each (the first rounds warm up the JIT compiler), and prints the time per open() call.
+	 *         To see the effect on branch mispredictions, run it under a profiler with hardware counters, e.g. on Linux:
+	 *         perf stat -e branches,branch-misses java PaddedPercolation 2000
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+		int[] order = new int[n * n];
+		for (int k = 0; k < order.length; k++) order[k] = k;
+		java.util.Random random = new java.util.Random();
+		for (int k = order.length - 1; k > 0; k--) {	//Fisher-Yates shuffle
+			int r = random.nextInt(k + 1);
+			int temp = order[k];
+			order[k] = order[r];
+			order[r] = temp;
+		}
+
+		for (int round = 1; round <= rounds; round++) {
+			long startTime = System.nanoTime();
+			Percolation p = new Percolation(n);
+			for (int k : order) p.open(k / n + 1, k % n + 1);
+			long percolationTime = System.nanoTime() - startTime;
+
+			startTime = System.nanoTime();
+			PaddedPercolation pp = new PaddedPercolation(n);
+			for (int k : order) pp.open(k / n + 1, k % n + 1);
+			long paddedTime = System.nanoTime() - startTime;
+
+			System.out.printf("Round %s: Percolation %.1f ns/open, PaddedPercolation %.1f ns/open\n", round,
+					percolationTime / (double) order.length, paddedTime / (double) order.length);
+		}
+	}
+}
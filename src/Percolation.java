@@ -10,13 +10,29 @@
  *
  *  Purpose - To apply the WeightedQuickUnionUF class to efficiently find out whether a given grid percolates or not.
  */
-public class Percolation {
+public class Percolation implements PercolationModel {
 	/* n x n square grid, represented as a 1-dimensional array.
 	 * Initializing three boolean arrays to keep track of important statuses efficiently. */
 	private boolean[] gridIsOpen, gridIsConnectedToTopRow, gridIsConnectedToBotRow;
 	private int n, nTimesN;	//n = the number of rows (AKA, number of columns) in the n x n grid. nTimesN = n * n.
-	private WeightedQuickUnionUF uf;	//quick union class.
+	private UnionFind uf;	//quick union class. See constructor.
 	private boolean percolates;		//boolean variable that gets updated to true as soon as the n x n grid percolates.
+	private int numberOfOpenSites;	//the number of sites opened so far.
+
+	/* Cluster statistics, kept up to date by open() and linkTwoNodes() so that reading them takes constant time.
+	 * (The number of clusters needs no field of its own. See numberOfClusters() method.) */
+	private int largestClusterSize;	//the number of sites in the largest group of open sites.
+	private int numberOfFullSites;	//the number of sites in all the groups connected to the top row put together.
+	private int[] sizeCount;		//sizeCount[s] = the number of groups of exactly s open sites. Null until needed. See trackClusterSizes() method.
+
+	/* nextInComponent links every site into a circular list of the sites in its group, so that the members of a group can be
+	 * enumerated in time proportional to the size of the group. newlyFull collects the sites that became full during the
+	 * most recent call to open(). See the newlyFullSites() method.
+	 * Both cost an extra n * n ints and extra work in open(), so they are null (and not kept up to date) unless a client asks for
+	 * them. See trackComponents() method. */
+	private int[] nextInComponent, newlyFull;
+	private int newlyFullCount;
+	private PercolationListener[] listeners = new PercolationListener[0];	//see addListener() method.
 
 	/**
 	 * 1-arg constructor.
@@ -40,7 +56,11 @@ public class Percolation {
 			gridIsConnectedToTopRow[i] = false;
 			gridIsConnectedToBotRow[i] = false;
 		}
-		uf = new WeightedQuickUnionUF(nTimesN);	//construct the quick union class object.
+		/* Construct the quick union class object. A grid of up to Short.MAX_VALUE sites (N <= 181) gets the compact version,
+		 * which needs half the memory. See ShortWeightedQuickUnionUF.java. */
+		if (nTimesN <= Short.MAX_VALUE) uf = new ShortWeightedQuickUnionUF(nTimesN);
+		else uf = new WeightedQuickUnionUF(nTimesN);
+		newlyFullCount = 0;
 	}
 
 	/**
@@ -84,68 +104,124 @@ public class Percolation {
 		 * */
 		int iD = iIndex * n + jIndex;
 
+		this.newlyFullCount = 0;	//forget the sites that became full during the previous call to open().
+		if (this.gridIsOpen[iD]) return;	//already open. Nothing changes, so nothing needs to be linked or reported.
+
 		this.gridIsOpen[iD] = true;	//open this site
+		this.numberOfOpenSites++;
+		if (this.largestClusterSize == 0) this.largestClusterSize = 1;	//the first site opened is a group of 1 site.
+		if (this.sizeCount != null) this.sizeCount[1]++;	//this site is a new group of 1 site, until it is linked to its neighbors below.
 		if (n == 1) this.percolates = true;	//Base case. If it's a 1 x 1 grid, then opening just one grid results in percolation.
+		for (PercolationListener listener : listeners) listener.siteOpened(iD);
 
 		/* Update these other boolean variables in the event that the location of this just-opened site is in the top or bottom row. */
-		if (iIndex == 0) this.gridIsConnectedToTopRow[iD] = true;
-		if (iIndex == n - 1) this.gridIsConnectedToBotRow[iD] = true;
+		if (iIndex == 0) {
+			this.gridIsConnectedToTopRow[iD] = true;
+			if (nextInComponent != null) this.recordNewlyFull(iD);	//a site in the top row is full as soon as it is opened.
+			this.numberOfFullSites++;
+			for (PercolationListener listener : listeners) listener.componentBecameFull(iD);
+		}
+		if (iIndex == n - 1) {
+			this.gridIsConnectedToBotRow[iD] = true;
+			for (PercolationListener listener : listeners) listener.componentReachedBottom(iD);
+		}
+
+		/* Now check if any of its neighbors are open and if so, connect them...
+		 * The just-opened site is a group of its own, so it is its own root. Each linkTwoNodes() call below merges a neighbor's group
+		 * into this site's group and returns the root of the merged group, so this site's root never needs to be looked up again. */
+		int root = iD;
 
-		/* Now check if any of its neighbors are open and if so, connect them... */
 		//check southern neighbor first...
 		int southNeighborID = iD + n;
 		if (southNeighborID < n * n && gridIsOpen[southNeighborID]) {	//make sure that there exists a neighbor to the south, AND that it is open.
-			this.linkTwoNodes(iD, southNeighborID);	//custom method
+			root = this.linkTwoNodes(root, southNeighborID);	//custom method
 		}
 
 		//check north neighbor. Same logic as for south neighbor above...
 		int northNeighborID = iD - n;
 		if (northNeighborID >= 0 && gridIsOpen[northNeighborID]) {
-			this.linkTwoNodes(iD, northNeighborID);
+			root = this.linkTwoNodes(root, northNeighborID);
 		}
 
 		//check western neighbor
 		int westNeighborID = (jIndex == 0) ? -1 : iD - 1;	//use conditional statement to ensure there exists a western neighbor, else iD = -1.
 		if (westNeighborID != -1 && gridIsOpen[westNeighborID]) {
-			this.linkTwoNodes(iD, westNeighborID);
+			root = this.linkTwoNodes(root, westNeighborID);
 		}
 
 		//check eastern neighbor. Same logic as for western neighbor above...
 		int eastNeighborID = (jIndex == n - 1) ? -1 : iD + 1;
 		if (eastNeighborID != -1 && gridIsOpen[eastNeighborID]) {
-			this.linkTwoNodes(iD, eastNeighborID);
+			this.linkTwoNodes(root, eastNeighborID);
 		}
 	}
 
 	/**
 	 * Method: linkTwoNodes
-	 *         Links two given nodes and updates the this.percolates attribute if appropriate. It is assumed that
-	 *         both nodes are open and are adjacent to each other.
-	 * @param id A given node.
-	 * @param neighborID The other given node.
+	 *         Links the group with the given root to the group of the given node and updates the this.percolates attribute
+	 *         if appropriate. It is assumed that the node is open and is adjacent to a member of the group.
+	 *         Only one uf.find() walk is needed, for the neighbor: uf.unionRoots() links the two roots directly and tells us
+	 *         which one is the root of the merged group. (uf.union() would have walked up to both roots again, and another
+	 *         uf.find() would have been needed afterwards to learn the new root.)
+	 * @param thisRootID The root of a given group.
+	 * @param neighborID A given node.
+	 * @return the root of the merged group, which contains both the given group and the given node.
 	 */
-	private void linkTwoNodes(int id, int neighborID) {
-		int thisRootID = uf.find(id);		//Invoke method to find the root of the given node.
+	private int linkTwoNodes(int thisRootID, int neighborID) {
 		int neighborsRootID = uf.find(neighborID);	//find the root of the neighboring node.
 
+		if (thisRootID == neighborsRootID) {	//Already in the same group (e.g. the neighbor was linked through another neighbor). Nothing changes.
+			if (UnionFindMetrics.ENABLED) UnionFindMetrics.recordRedundantLink();
+			return thisRootID;
+		}
+
 		/* Initialize two boolean variables. */
-		boolean atLeastOneNodeIsconnectedToTopRow = false;
-		boolean atLeastOneNodeIsconnectedToBotRow = false;
+		boolean atLeastOneNodeIsconnectedToTopRow = gridIsConnectedToTopRow[neighborsRootID] || gridIsConnectedToTopRow[thisRootID];
+		boolean atLeastOneNodeIsconnectedToBotRow = gridIsConnectedToBotRow[neighborsRootID] || gridIsConnectedToBotRow[thisRootID];
+
+		/* The sizes of the two groups, read straight from the union find object since both are roots. */
+		int thisGroupSize = uf.size(thisRootID);
+		int neighborsGroupSize = uf.size(neighborsRootID);
+
+		/* If exactly one of the two groups is connected to the top row, then every site in the other group becomes full.
+		 * Record those sites now, while the two circular lists are still separate, and set the other group's flag before
+		 * telling the listeners, so that isFull() is already true for them (see PercolationListener.componentBecameFull()).
+		 * The flag of whichever root ends up absorbed is never read again, so setting it early is harmless. */
+		if (gridIsConnectedToTopRow[thisRootID] != gridIsConnectedToTopRow[neighborsRootID]) {
+			int becomingFullRootID = gridIsConnectedToTopRow[thisRootID] ? neighborsRootID : thisRootID;
+			this.numberOfFullSites += gridIsConnectedToTopRow[thisRootID] ? neighborsGroupSize : thisGroupSize;
+			gridIsConnectedToTopRow[becomingFullRootID] = true;
+			if (nextInComponent != null) {
+				int site = becomingFullRootID;
+				do {
+					this.recordNewlyFull(site);
+					site = nextInComponent[site];
+				} while (site != becomingFullRootID);
+			}
+			for (PercolationListener listener : listeners) listener.componentBecameFull(becomingFullRootID);
+		}
 
-		/* Update the boolean variables */
-		if (gridIsConnectedToTopRow[neighborsRootID] || gridIsConnectedToTopRow[thisRootID]) atLeastOneNodeIsconnectedToTopRow = true;
-		if (gridIsConnectedToBotRow[neighborsRootID] || gridIsConnectedToBotRow[thisRootID]) atLeastOneNodeIsconnectedToBotRow = true;
+		/* Same for the bottom row, except that nothing needs to be recorded. */
+		if (gridIsConnectedToBotRow[thisRootID] != gridIsConnectedToBotRow[neighborsRootID]) {
+			int reachingBottomRootID = gridIsConnectedToBotRow[thisRootID] ? neighborsRootID : thisRootID;
+			gridIsConnectedToBotRow[reachingBottomRootID] = true;
+			for (PercolationListener listener : listeners) listener.componentReachedBottom(reachingBottomRootID);
+		}
 
-		this.uf.union(id, neighborID);	//now connect these two nodes.
+		/* Splice the two circular lists into one by swapping the successors of the two roots. */
+		if (nextInComponent != null) {
+			int temp = nextInComponent[thisRootID];
+			nextInComponent[thisRootID] = nextInComponent[neighborsRootID];
+			nextInComponent[neighborsRootID] = temp;
+		}
 
-		/* The above uf.union() method may have resulted in a new root. Find this root ID of the newly merged group that
-		 * contains the neighbor's ID.
-		 * Note the below uf.find() method could've been replaced with the following:
-		 *
-		 * int newlyMergedGroupsRootID = uf.find(id)
-		 *
-		 * either way, we'll get the correct newlyMergedGroupsRootID. */
-		int newlyMergedGroupsRootID = uf.find(neighborID);
+		int newlyMergedGroupsRootID = this.uf.unionRoots(thisRootID, neighborsRootID);	//now connect the two groups.
+		this.largestClusterSize = Math.max(this.largestClusterSize, thisGroupSize + neighborsGroupSize);
+		if (this.sizeCount != null) {
+			this.sizeCount[thisGroupSize]--;	//two groups of these sizes are replaced by one group of the sum of their sizes.
+			this.sizeCount[neighborsGroupSize]--;
+			this.sizeCount[thisGroupSize + neighborsGroupSize]++;
+		}
 
 		/* Update the boolean arrays pertaining to this root ID to keep track of whether this newly merged group containing this root is
 		 * connected to the top and/or bottom row.
@@ -157,10 +233,128 @@ public class Percolation {
 		gridIsConnectedToTopRow[newlyMergedGroupsRootID] = atLeastOneNodeIsconnectedToTopRow;
 		gridIsConnectedToBotRow[newlyMergedGroupsRootID] = atLeastOneNodeIsconnectedToBotRow;
 
+		int absorbedRootID = (newlyMergedGroupsRootID == thisRootID) ? neighborsRootID : thisRootID;
+		for (PercolationListener listener : listeners) listener.componentsMerged(newlyMergedGroupsRootID, absorbedRootID);
+
 		/* If this newly merged group is connected to BOTH the top and bottom row, then we know the grid now percolates. */
-		if (gridIsConnectedToTopRow[newlyMergedGroupsRootID] && gridIsConnectedToBotRow[newlyMergedGroupsRootID]) {
+		if (atLeastOneNodeIsconnectedToTopRow && atLeastOneNodeIsconnectedToBotRow) {
 			this.percolates = true;
 		}
+		return newlyMergedGroupsRootID;
+	}
+
+	/**
+	 * Method: recordNewlyFull
+	 *         Appends the given site to the list of sites that became full during the current call to open(),
+	 *         doubling the size of the list if it is already full.
+	 * @param id A given node.
+	 */
+	private void recordNewlyFull(int id) {
+		if (newlyFullCount == newlyFull.length) {
+			newlyFull = java.util.Arrays.copyOf(newlyFull, Math.min(nTimesN, 2 * newlyFull.length));
+		}
+		newlyFull[newlyFullCount++] = id;
+	}
+
+	/**
+	 * Method: trackComponents
+	 *         From now on, keep track of the members of every group and of the sites that become full, as needed by the
+	 *         componentSites() and newlyFullSites() methods. Monte Carlo trials that only need percolates() don't pay for it.
+	 *         Can be called at any time: the circular lists of the groups that already exist are built in one pass over the grid.
+	 *         Calling it again does nothing.
+	 */
+	public void trackComponents() {
+		if (nextInComponent != null) return;
+		nextInComponent = new int[nTimesN];
+		for (int i = 0; i < nTimesN; i++) nextInComponent[i] = i;	//every site starts in a circular list of its own...
+		for (int i = 0; i < nTimesN; i++) {
+			if (!gridIsOpen[i]) continue;
+			int root = uf.find(i);
+			if (root == i) continue;
+			nextInComponent[i] = nextInComponent[root];	//...then each open site is inserted right after its group's root.
+			nextInComponent[root] = i;
+		}
+		newlyFull = new int[Math.min(nTimesN, 16)];	//grown on demand. See recordNewlyFull() method.
+		newlyFullCount = 0;
+	}
+
+	/**
+	 * Method: newlyFullSites
+	 *         Reports the sites that became full during the most recent call to open(). Each site is reported as its
+	 *         one-dimensional ID, i.e. (row - 1) * N + (col - 1). The site that was just opened is included only if it is full.
+	 *         This lets a client (e.g. PercolationVisualizer) update itself in time proportional to the number of changed sites,
+	 *         rather than rescanning the whole grid.
+	 * @param ids the array to copy the IDs into. An array of length N * N is always large enough.
+	 * @return the number of IDs copied into the array.
+	 * @throws java.lang.IllegalStateException unless trackComponents() was called before the most recent call to open().
+	 */
+	public int newlyFullSites(int[] ids) {
+		if (nextInComponent == null) throw new java.lang.IllegalStateException("Call trackComponents() before opening sites.");
+		if (ids.length < newlyFullCount) throw new java.lang.IllegalArgumentException("Array is too small to hold " + newlyFullCount + " sites.");
+		System.arraycopy(newlyFull, 0, ids, 0, newlyFullCount);
+		return newlyFullCount;
+	}
+
+	/**
+	 * Method: numberOfNewlyFullSites
+	 * @return the number of sites newlyFullSites() would report, so that a client can size its array to fit.
+	 * @throws java.lang.IllegalStateException unless trackComponents() was called before the most recent call to open().
+	 */
+	public int numberOfNewlyFullSites() {
+		if (nextInComponent == null) throw new java.lang.IllegalStateException("Call trackComponents() before opening sites.");
+		return newlyFullCount;
+	}
+
+	/**
+	 * Method: addListener
+	 *         Registers a listener to be notified of merges and of top / bottom row status changes. See PercolationListener.java.
+	 *         When no listener is registered, open() does no extra work. Registering a listener also turns on trackComponents(),
+	 *         so that the listener can enumerate the groups it is told about with componentSites().
+	 * @param listener the listener to register.
+	 */
+	public void addListener(PercolationListener listener) {
+		if (listener == null) throw new java.lang.NullPointerException("Listener cannot be null.");
+		this.trackComponents();
+		listeners = java.util.Arrays.copyOf(listeners, listeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+	}
+
+	/**
+	 * Method: removeListener
+	 * @param listener a listener previously registered with addListener(). Nothing happens if it isn't registered.
+	 */
+	public void removeListener(PercolationListener listener) {
+		for (int k = 0; k < listeners.length; k++) {
+			if (listeners[k] == listener) {
+				PercolationListener[] fewer = new PercolationListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, fewer, 0, k);
+				System.arraycopy(listeners, k + 1, fewer, k, listeners.length - k - 1);
+				listeners = fewer;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Method: componentSites
+	 *         Enumerates all the sites that are in the same group as the given site (including the site itself),
+	 *         in time proportional to the size of the group. A closed site is always in a group of its own.
+	 *         The first call turns on trackComponents(), which takes one pass over the grid.
+	 * @param id the one-dimensional ID of a site, i.e. (row - 1) * N + (col - 1).
+	 * @param ids the array to copy the IDs of the group's sites into. An array of length N * N is always large enough.
+	 * @return the number of IDs copied into the array.
+	 */
+	public int componentSites(int id, int[] ids) {
+		if (id < 0 || id >= nTimesN) throw new java.lang.IndexOutOfBoundsException("ID " + id + " is not between 0 and " + (nTimesN - 1));
+		this.trackComponents();
+		int count = 0;
+		int site = id;
+		do {
+			if (count == ids.length) throw new java.lang.IllegalArgumentException("Array is too small to hold the group.");
+			ids[count++] = site;
+			site = nextInComponent[site];
+		} while (site != id);
+		return count;
 	}
 
 	/**
@@ -217,6 +411,110 @@ public class Percolation {
 		return this.gridIsOpen[iD] && gridIsConnectedToTopRow[uf.find(iD)];
 	}
 
+	/**
+	 * Method: snapshotOpen
+	 *         Copies the open / closed status of the whole grid into a bitmap in a single linear pass.
+	 *         Site iD = (row - 1) * N + (col - 1) is stored in bit (iD % 64) of out[iD / 64], and is 1 if the site is open.
+	 * @param out the bitmap to fill in. Must have a length of at least (N * N + 63) / 64. Any bits past N * N are cleared.
+	 */
+	public void snapshotOpen(long[] out) {
+		this.checkBitmapLength(out);
+		for (int w = 0; w * 64 < nTimesN; w++) {
+			long word = 0L;
+			int end = Math.min(nTimesN, w * 64 + 64);
+			for (int iD = w * 64; iD < end; iD++) {
+				if (gridIsOpen[iD]) word |= 1L << iD;	//shift distance is taken mod 64, so this sets bit (iD % 64).
+			}
+			out[w] = word;
+		}
+	}
+
+	/**
+	 * Method: snapshotFull
+	 *         Copies the full / not full status of the whole grid into a bitmap in a single linear pass, using the same layout
+	 *         as snapshotOpen(). This is much cheaper than calling isFull() N * N times: there are no bounds checks, closed sites
+	 *         skip the uf.find() walk entirely, and the top row flag is read once per site straight from its root.
+	 *         Since uf.find() halves the path it walks, the trees are nearly flat after the first snapshot, so later
+	 *         snapshots (e.g. one per animation frame) walk only one or two links per open site.
+	 * @param out the bitmap to fill in. Must have a length of at least (N * N + 63) / 64. Any bits past N * N are cleared.
+	 */
+	public void snapshotFull(long[] out) {
+		this.checkBitmapLength(out);
+		for (int w = 0; w * 64 < nTimesN; w++) {
+			long word = 0L;
+			int end = Math.min(nTimesN, w * 64 + 64);
+			for (int iD = w * 64; iD < end; iD++) {
+				/* The top row flags are only kept up to date for ROOT IDs (see isFull() method), so look them up by root. */
+				if (gridIsOpen[iD] && gridIsConnectedToTopRow[uf.find(iD)]) word |= 1L << iD;
+			}
+			out[w] = word;
+		}
+	}
+
+	/**
+	 * Method: snapshotOpen
+	 *         Same as snapshotOpen(long[] out), but only for the size x size block of sites whose upper left corner is at
+	 *         (row0 + 1, col0 + 1), so that a client showing part of a large grid (e.g. PercolationVisualizer zoomed in) only
+	 *         pays for the sites it shows. The block is copied row by row: site (row0 + 1 + r, col0 + 1 + c) goes to bit number
+	 *         r * size + c of the bitmap.
+	 * @param out the bitmap to fill in. Must have a length of at least (size * size + 63) / 64.
+	 * @param row0 the 0 based index of the block's top row.
+	 * @param col0 the 0 based index of the block's leftmost column.
+	 * @param size the number of rows (and columns) of the block.
+	 */
+	public void snapshotOpen(long[] out, int row0, int col0, int size) {
+		this.checkBlock(out, row0, col0, size);
+		java.util.Arrays.fill(out, 0, (size * size + 63) / 64, 0L);
+		int k = 0;	//bit number in out[]
+		for (int r = 0; r < size; r++) {
+			int iD = (row0 + r) * n + col0;
+			for (int c = 0; c < size; c++, iD++, k++) {
+				if (gridIsOpen[iD]) out[k >>> 6] |= 1L << k;
+			}
+		}
+	}
+
+	/**
+	 * Method: snapshotFull
+	 *         Same as snapshotFull(long[] out), but only for a block of sites. See snapshotOpen(long[], int, int, int).
+	 */
+	public void snapshotFull(long[] out, int row0, int col0, int size) {
+		this.checkBlock(out, row0, col0, size);
+		java.util.Arrays.fill(out, 0, (size * size + 63) / 64, 0L);
+		int k = 0;
+		for (int r = 0; r < size; r++) {
+			int iD = (row0 + r) * n + col0;
+			for (int c = 0; c < size; c++, iD++, k++) {
+				if (gridIsOpen[iD] && gridIsConnectedToTopRow[uf.find(iD)]) out[k >>> 6] |= 1L << k;
+			}
+		}
+	}
+
+	/**
+	 * Method: checkBlock
+	 * @throws IndexOutOfBoundsException unless the size x size block at (row0, col0) (0 based) is inside the grid.
+	 * @throws IllegalArgumentException if the bitmap is too short to hold one bit per site of the block.
+	 */
+	private void checkBlock(long[] bitmap, int row0, int col0, int size) {
+		if (size < 0 || row0 < 0 || col0 < 0 || row0 + size > n || col0 + size > n) {
+			throw new java.lang.IndexOutOfBoundsException("Block of " + size + " x " + size + " sites at (" + row0 + ", " + col0 + ") is not inside the grid.");
+		}
+		if (bitmap.length < (size * size + 63) / 64) {
+			throw new java.lang.IllegalArgumentException("Bitmap needs at least " + (size * size + 63) / 64 + " words.");
+		}
+	}
+
+	/**
+	 * Method: checkBitmapLength
+	 * @param bitmap A given bitmap.
+	 * @throws IllegalArgumentException if the bitmap is too short to hold one bit per site.
+	 */
+	private void checkBitmapLength(long[] bitmap) {
+		if (bitmap.length < (nTimesN + 63) / 64) {
+			throw new java.lang.IllegalArgumentException("Bitmap needs at least " + (nTimesN + 63) / 64 + " words.");
+		}
+	}
+
 	/**
 	 * Method: percolates
 	 * @return true if the system percolates (the top and bottom are connected by open, adjacent nodes), false otherwise.
@@ -228,6 +526,83 @@ public class Percolation {
 		return this.percolates;
 	}
 
+	/**
+	 * Method: numberOfOpenSites
+	 * @return the number of sites opened so far.
+	 */
+	public int numberOfOpenSites() {
+		return this.numberOfOpenSites;
+	}
+
+	/**
+	 * Method: numberOfClusters
+	 *         Every closed site is still a group of its own in the union find object, so the number of groups of open sites
+	 *         is the union find object's count of groups minus the number of closed sites. Takes constant time.
+	 * @return the number of clusters (groups of connected open sites).
+	 */
+	public int numberOfClusters() {
+		return this.uf.count() - (this.nTimesN - this.numberOfOpenSites);
+	}
+
+	/**
+	 * Method: largestClusterSize
+	 * @return the number of sites in the largest cluster (group of connected open sites), or 0 if no site is open.
+	 *         Takes constant time.
+	 */
+	public int largestClusterSize() {
+		return this.largestClusterSize;
+	}
+
+	/**
+	 * Method: numberOfFullSites
+	 * @return the number of full sites, i.e. the total size of the clusters connected to the top row. Takes constant time.
+	 */
+	public int numberOfFullSites() {
+		return this.numberOfFullSites;
+	}
+
+	/**
+	 * Method: trackClusterSizes
+	 *         From now on, keep the cluster size distribution up to date in open() and linkTwoNodes() (3 array updates per merge
+	 *         of two clusters), so that reading it never needs a scan of the grid. Costs an extra n * n + 1 ints, so it is off
+	 *         unless a client asks for it. Can be called at any time: the distribution of the clusters that already exist is
+	 *         built in one pass over the grid. Calling it again does nothing.
+	 */
+	public void trackClusterSizes() {
+		if (this.sizeCount != null) return;
+		this.sizeCount = new int[nTimesN + 1];
+		for (int i = 0; i < nTimesN; i++) {
+			if (gridIsOpen[i] && uf.find(i) == i) this.sizeCount[uf.size(i)]++;	//count each group once, at its root.
+		}
+	}
+
+	/**
+	 * Method: clusterSizeCount
+	 *         The first call turns on trackClusterSizes(), which takes one pass over the grid. Later calls take constant time.
+	 * @param s a cluster size, between 1 and n * n.
+	 * @return the number of clusters (groups of connected open sites) of exactly s sites.
+	 */
+	public int clusterSizeCount(int s) {
+		if (s < 1 || s > nTimesN) throw new java.lang.IndexOutOfBoundsException("size " + s + " is not between 1 and " + nTimesN);
+		this.trackClusterSizes();
+		return this.sizeCount[s];
+	}
+
+	/**
+	 * Method: addClusterSizeCounts
+	 *         Adds the current cluster size distribution to the given totals, i.e. totals[s] += clusterSizeCount(s) for every
+	 *         size s, e.g. to add up the distributions of many trials. Takes time proportional to largestClusterSize(), since
+	 *         there are no clusters of a larger size (plus one pass over the grid the first time, see trackClusterSizes()).
+	 * @param totals an array of at least largestClusterSize() + 1 entries, indexed by cluster size. totals[0] is left as is.
+	 */
+	public void addClusterSizeCounts(long[] totals) {
+		if (totals.length <= this.largestClusterSize) {
+			throw new java.lang.IllegalArgumentException("Need an array of at least " + (this.largestClusterSize + 1) + " entries.");
+		}
+		this.trackClusterSizes();
+		for (int s = 1; s <= this.largestClusterSize; s++) totals[s] += this.sizeCount[s];
+	}
+
 	/**
 	 * Method: main (optional, for testing).
 	 *         See the PercolationVisualizer and InteractivePercolationVisualizer classes for comprehensive testing.
@@ -257,5 +632,8 @@ public class Percolation {
 				numOfOpenGrids, numOfOpenGrids / (double)(n * n) * 100);
 		long endTime = System.currentTimeMillis();
 		System.out.printf("Elapsed time: %s millisecs\n", endTime - startTime);
+		System.out.printf("%s clusters. The largest one has %s sites. %s sites are full.\n",
+				p.numberOfClusters(), p.largestClusterSize(), p.numberOfFullSites());
+		if (UnionFindMetrics.ENABLED) UnionFindMetrics.print();	//run with -Dpercolation.metrics=true to see these.
 	}
 }
@@ -0,0 +1,214 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Random;
+
+/** Class: PercolationComparison.java
+ *
+ *  This class - Compares the percolation engines (see PercolationModel.java) side by side: Percolation.java,
+ *               Percolation_2UFObjectsSolution_NotAsEfficient.java, PaddedPercolation.java, MortonPercolation.java,
+ *               ConcurrentPercolation.java (used from one thread) and LatticePercolation.java on a rectangle lattice.
+ *
+ *  Every engine opens the sites of an N x N grid in the same order, a random permutation of all the sites generated from a given seed.
+ *
+ *  1. Verification. Each engine's isFull() of every site is compared to Percolation.java's at several checkpoints (every tenth of the
+ *     sites, and right after the grid percolates), and so is the number of sites opened when percolates() first becomes true.
+ *     Any difference is reported and makes the program exit with status 1.
+ *  2. Measurement. Each engine opens all the sites, several rounds in a row (the first rounds warm up the JIT compiler).
+ *     For the last round, it reports:
+ *     - throughput: the number of open() calls per second.
+ *     - peak heap: the highest heap usage during the round (construction included), as reported by the JVM's memory pools,
+ *       minus the heap in use before the round.
+ *     - retained heap: how much the heap grew by keeping the engine, measured after garbage collections.
+ *     - bytes allocated per open() call, measured with com.sun.management.ThreadMXBean (construction not included).
+ *
+ *  Run with: java PercolationComparison {N} {seed} {rounds}, e.g. java PercolationComparison 500 1 3
+ */
+public class PercolationComparison {
+
+	/* The engines to compare: those of PercolationFactory.java, except WrappingPercolation.java, whose sites are full when they are
+	 * in a cluster that wraps around (not the same as in the other engines), plus LatticePercolation.java on a rectangle. */
+	private static final String[] ENGINES = { "percolation", "2uf", "padded", "morton", "concurrent", "lattice" };
+	private static final int CHECKPOINTS = 10;
+
+	/* The engine being measured by measure(), while usedHeapAfterGC() runs. A local variable that is no longer used does not keep an
+	 * object reachable, but a static field does. */
+	private static volatile Object measured;
+
+	/**
+	 * Method: newEngine
+	 * @param name one of the ENGINES.
+	 * @param N the number of rows (and columns) of the grid.
+	 * @return a new engine with all the sites closed.
+	 */
+	private static PercolationModel newEngine(String name, final int N) {
+		if (!name.equals("lattice")) return PercolationFactory.create(name, N);
+
+		/* LatticePercolation.java numbers its sites itself, so it needs an adapter. */
+		final Lattice lattice = Lattice.rectangle(N, N);
+		final LatticePercolation p = new LatticePercolation(lattice);
+		return new PercolationModel() {
+			public void open(int i, int j) { p.open(lattice.index(i, j)); }
+			public boolean isOpen(int i, int j) { return p.isOpen(lattice.index(i, j)); }
+			public boolean isFull(int i, int j) { return p.isFull(lattice.index(i, j)); }
+			public boolean percolates() { return p.percolates(); }
+			public int numberOfOpenSites() { return p.numberOfOpenSites(); }
+		};
+	}
+
+	/**
+	 * Method: randomOrder
+	 * @return a random permutation of the site IDs 0 to N * N - 1 (site ID = (row - 1) * N + (col - 1)), generated from the seed.
+	 */
+	private static int[] randomOrder(int N, long seed) {
+		int[] order = new int[N * N];
+		for (int k = 0; k < order.length; k++) order[k] = k;
+		Random random = new Random(seed);
+		for (int k = order.length - 1; k > 0; k--) {	//Fisher-Yates shuffle
+			int r = random.nextInt(k + 1);
+			int temp = order[k];
+			order[k] = order[r];
+			order[r] = temp;
+		}
+		return order;
+	}
+
+	/**
+	 * Method: fullSites
+	 * @return isFull() of every site of the engine, as a bitmap: site ID k is bit (k % 64) of word k / 64.
+	 */
+	private static long[] fullSites(PercolationModel engine, int N) {
+		long[] full = new long[(N * N + 63) / 64];
+		for (int k = 0; k < N * N; k++) {
+			if (engine.isFull(k / N + 1, k % N + 1)) full[k >> 6] |= 1L << k;
+		}
+		return full;
+	}
+
+	/**
+	 * Method: verify
+	 *         Opens all the sites with the given engine, taking a bitmap of the full sites at each checkpoint.
+	 * @param percolatedAt set to the number of sites opened when the grid first percolated.
+	 * @return the bitmaps, one per checkpoint: CHECKPOINTS - 1 evenly spaced ones, the one right after percolation, and the final one.
+	 */
+	private static long[][] verify(PercolationModel engine, int N, int[] order, int[] percolatedAt) {
+		long[][] snapshots = new long[CHECKPOINTS + 1][];
+		int checkpoint = 0;
+		percolatedAt[0] = -1;
+		for (int s = 0; s < order.length; s++) {
+			engine.open(order[s] / N + 1, order[s] % N + 1);
+			if (percolatedAt[0] == -1 && engine.percolates()) {
+				percolatedAt[0] = s + 1;
+				snapshots[CHECKPOINTS - 1] = fullSites(engine, N);
+			}
+			if (checkpoint < CHECKPOINTS - 1 && s + 1 == (long) order.length * (checkpoint + 1) / CHECKPOINTS) {
+				snapshots[checkpoint++] = fullSites(engine, N);
+			}
+		}
+		snapshots[CHECKPOINTS] = fullSites(engine, N);
+		return snapshots;
+	}
+
+	/* The bytes allocated so far by the current thread, or -1 if this JVM can't tell. */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	private static void resetPeakHeap() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+		}
+	}
+
+	private static long peakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+		}
+		return peak;
+	}
+
+	private static long usedHeapAfterGC() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int k = 0; k < 3; k++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Method: measure
+	 *         Opens all the sites with a new engine.
+	 * @param before the heap in use before the call, after garbage collections.
+	 * @return { open() calls per second, peak heap minus before, heap in use after garbage collections while the engine is still
+	 *         reachable, bytes allocated per open() call (NaN if unknown) }
+	 */
+	private static double[] measure(String name, int N, int[] order, long before) {
+		resetPeakHeap();
+		PercolationModel engine = newEngine(name, N);
+		long startBytes = allocatedBytes();
+		long startTime = System.nanoTime();
+		for (int k : order) engine.open(k / N + 1, k % N + 1);
+		long elapsed = System.nanoTime() - startTime;
+		long endBytes = allocatedBytes();
+		long peak = peakHeap() - before;
+		if (!engine.percolates()) throw new IllegalStateException(name + " does not percolate with all sites open");
+		measured = engine;	//keep the engine from being collected before it is measured.
+		long withEngine = usedHeapAfterGC();
+		measured = null;
+		return new double[] { order.length / (elapsed / 1e9), peak, withEngine,
+				(startBytes == -1) ? Double.NaN : (endBytes - startBytes) / (double) order.length };
+	}
+
+	/**
+	 * Method: main
+	 * @param args N, seed and number of rounds. All optional.
+	 */
+	public static void main(String[] args) {
+		int N = (args.length > 0) ? Integer.parseInt(args[0]) : 500;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 1;
+		int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 3;
+		int[] order = randomOrder(N, seed);
+
+		/* 1. Verification. */
+		int[] percolatedAt = new int[1];
+		long[][] expected = verify(newEngine(ENGINES[0], N), N, order, percolatedAt);
+		int expectedPercolatedAt = percolatedAt[0];
+		boolean allAgree = true;
+		for (int e = 1; e < ENGINES.length; e++) {
+			long[][] actual = verify(newEngine(ENGINES[e], N), N, order, percolatedAt);
+			if (percolatedAt[0] != expectedPercolatedAt) {
+				System.out.printf("MISMATCH: %s percolates after %s opens, %s after %s\n",
+						ENGINES[e], percolatedAt[0], ENGINES[0], expectedPercolatedAt);
+				allAgree = false;
+			}
+			for (int c = 0; c < expected.length; c++) {
+				if (!java.util.Arrays.equals(expected[c], actual[c])) {
+					System.out.printf("MISMATCH: %s and %s disagree on isFull() at checkpoint %s\n", ENGINES[e], ENGINES[0], c);
+					allAgree = false;
+				}
+			}
+		}
+		System.out.printf("N = %s, seed = %s: %s engines %s (percolates after %s opens)\n",
+				N, seed, ENGINES.length, allAgree ? "agree" : "DISAGREE", expectedPercolatedAt);
+
+		/* 2. Measurement. */
+		System.out.printf("%-12s %14s %12s %14s %14s\n", "engine", "opens/sec", "peak heap", "retained heap", "bytes/open");
+		for (String name : ENGINES) {
+			double[] result = null;
+			long retained = 0;
+			for (int round = 1; round <= rounds; round++) {
+				long before = usedHeapAfterGC();
+				result = measure(name, N, order, before);
+				retained = (long) result[2] - usedHeapAfterGC();	//the engine is unreachable once measure() has returned.
+			}
+			System.out.printf("%-12s %14.0f %10.1fMB %12.1fMB %14.2f\n", name, result[0], result[1] / 1e6, retained / 1e6, result[3]);
+		}
+		if (!allAgree) System.exit(1);
+	}
+}
@@ -0,0 +1,87 @@
+/** Class: PercolationFactory.java
+ *
+ *  This class - Creates the percolation engine (see PercolationModel.java) that the user chose, so that the same client code can run
+ *               on any engine without changes.
+ *
+ *  The engines are:
+ *  percolation - Percolation.java (the default)
+ *  2uf         - Percolation_2UFObjectsSolution_NotAsEfficient.java
+ *  padded      - PaddedPercolation.java
+ *  morton      - MortonPercolation.java
+ *  concurrent  - ConcurrentPercolation.java
+ *  wrapping    - WrappingPercolation.java (periodic boundaries. Full means "in a cluster that wraps vertically")
+ *
+ *  The engine is chosen, in this order of priority, by:
+ *  1. an -engine=NAME command line argument, e.g. java PercolationStats 200 100 -engine=padded
+ *     (see useEngineFlag() method, which the clients' main() methods call first.)
+ *  2. the percolation.engine system property, e.g. java -Dpercolation.engine=padded PercolationStats 200 100
+ */
+public final class PercolationFactory {
+
+	public static final String[] ENGINES = { "percolation", "2uf", "padded", "morton", "concurrent", "wrapping" };
+	private static final String FLAG = "-engine=";
+
+	private static String chosenEngine = null;	//set by useEngineFlag(), if the flag was given.
+
+	private PercolationFactory() { }	//not instantiable.
+
+	/**
+	 * Method: useEngineFlag
+	 *         Looks for an -engine=NAME argument. If there is one, NAME becomes the engine that create(int N) uses.
+	 * @param args the command line arguments.
+	 * @return the other command line arguments, in the same order, so that the caller can read them as if the flag wasn't there.
+	 * @throws java.lang.IllegalArgumentException if NAME is not one of the ENGINES.
+	 */
+	public static String[] useEngineFlag(String[] args) {
+		java.util.List<String> rest = new java.util.ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith(FLAG)) chosenEngine = checkName(arg.substring(FLAG.length()));
+			else rest.add(arg);
+		}
+		return rest.toArray(new String[rest.size()]);
+	}
+
+	/**
+	 * Method: engineName
+	 * @return the name of the engine that create(int N) uses.
+	 */
+	public static String engineName() {
+		if (chosenEngine != null) return chosenEngine;
+		return checkName(System.getProperty("percolation.engine", ENGINES[0]));
+	}
+
+	/**
+	 * Method: create
+	 * @param N the number of rows (which is equal to the number of columns) for the square grid.
+	 * @return a new N x N grid, with all sites closed, of the engine chosen by the user. See class comments.
+	 */
+	public static PercolationModel create(int N) {
+		return create(engineName(), N);
+	}
+
+	/**
+	 * Method: create
+	 * @param name one of the ENGINES.
+	 * @param N the number of rows (which is equal to the number of columns) for the square grid.
+	 * @return a new N x N grid of the given engine, with all sites closed.
+	 * @throws java.lang.IllegalArgumentException if name is not one of the ENGINES.
+	 */
+	public static PercolationModel create(String name, int N) {
+		name = checkName(name);
+		if (name.equals("percolation")) return new Percolation(N);
+		if (name.equals("2uf"))         return new Percolation_2UFObjectsSolution_NotAsEfficient(N);
+		if (name.equals("padded"))      return new PaddedPercolation(N);
+		if (name.equals("morton"))      return new MortonPercolation(N);
+		if (name.equals("concurrent"))  return new ConcurrentPercolation(N);
+		return new WrappingPercolation(N);
+	}
+
+	/* Returns the name in lower case, or throws an exception if it is not one of the ENGINES. */
+	private static String checkName(String name) {
+		String lowerCase = name.toLowerCase();
+		for (String engine : ENGINES) {
+			if (engine.equals(lowerCase)) return engine;
+		}
+		throw new IllegalArgumentException("Unknown percolation engine: " + name + ". Choose one of " + java.util.Arrays.toString(ENGINES));
+	}
+}
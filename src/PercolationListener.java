@@ -0,0 +1,49 @@
+/** Interface: PercolationListener.java
+ *
+ *  Receives change notifications from a Percolation object, at the level of whole groups (components) of connected sites
+ *  rather than individual sites. Register with Percolation.addListener().
+ *
+ *  Groups are identified by their root ID (see WeightedQuickUnionUF.find()). Sites are identified by their one-dimensional ID,
+ *  i.e. (row - 1) * N + (col - 1). While a callback runs, Percolation.componentSites() can be used to enumerate the members of
+ *  any group mentioned in it, so a listener can update itself in time proportional to the number of sites that changed.
+ *
+ *  Callbacks are made from inside Percolation.open(), so they must not call open() themselves.
+ */
+public interface PercolationListener {
+
+	/**
+	 * Method: siteOpened
+	 *         Called once for each site that is opened, before it is linked to any of its open neighbors.
+	 * @param id the site that was opened.
+	 */
+	void siteOpened(int id);
+
+	/**
+	 * Method: componentBecameFull
+	 *         Called when a group that was NOT connected to the top row becomes connected to it, either because one of
+	 *         its sites was opened in the top row or because it is being linked to a full group.
+	 *         When this is called, isFull() already returns true for every site in the group and numberOfFullSites()
+	 *         already counts them. The group has NOT been merged with the full group yet: root is still its root, and
+	 *         enumerating it with componentSites() yields exactly the sites whose isFull() status just flipped.
+	 *         numberOfClusters(), the cluster sizes and percolates() still describe the groups before the merge;
+	 *         componentsMerged() follows once they are up to date.
+	 * @param root the root of the group that just became full.
+	 */
+	void componentBecameFull(int root);
+
+	/**
+	 * Method: componentReachedBottom
+	 *         Same as componentBecameFull(), but for groups that just became connected to the bottom row. The group is
+	 *         already reported as connected to the bottom row, but has not been merged yet.
+	 * @param root the root of the group that just became connected to the bottom row.
+	 */
+	void componentReachedBottom(int root);
+
+	/**
+	 * Method: componentsMerged
+	 *         Called after two different groups have been merged into one.
+	 * @param root the root of the merged group.
+	 * @param absorbedRoot the root of the group that was merged into it, which is no longer a root.
+	 */
+	void componentsMerged(int root, int absorbedRoot);
+}
@@ -0,0 +1,43 @@
+/** Interface: PercolationModel.java
+ *
+ *  This interface - The public methods that the percolation engines of an N x N grid have in common, so that clients
+ *                   (PercolationVisualizer.java, InteractivePercolationVisualizer.java, PercolationStats.java, PercolationComparison.java)
+ *                   can work with any of them. Use PercolationFactory.java to create one.
+ *
+ *  Rows and columns are numbered from 1 to N, with (1, 1) at the upper left corner of the grid. See Percolation.java for details.
+ */
+public interface PercolationModel {
+
+	/**
+	 * Method: open
+	 *         Opens the site at (i, j), if it is not open already.
+	 * @throws java.lang.IndexOutOfBoundsException unless both i and j are between 1 and N.
+	 */
+	void open(int i, int j);
+
+	/**
+	 * Method: isOpen
+	 * @return true if the site at (i, j) is open.
+	 * @throws java.lang.IndexOutOfBoundsException unless both i and j are between 1 and N.
+	 */
+	boolean isOpen(int i, int j);
+
+	/**
+	 * Method: isFull
+	 * @return true if the site at (i, j) is full, i.e. open and connected to the top row through open sites.
+	 * @throws java.lang.IndexOutOfBoundsException unless both i and j are between 1 and N.
+	 */
+	boolean isFull(int i, int j);
+
+	/**
+	 * Method: percolates
+	 * @return true if the grid percolates.
+	 */
+	boolean percolates();
+
+	/**
+	 * Method: numberOfOpenSites
+	 * @return the number of sites opened so far.
+	 */
+	int numberOfOpenSites();
+}
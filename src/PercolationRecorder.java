@@ -0,0 +1,235 @@
+/****************************************************************************
+ *  Compilation:  javac PercolationRecorder.java
+ *  Execution:    java PercolationRecorder input.txt K output
+ *  Dependencies: Percolation.java PercolationVisualizer.java In.java
+ *
+ *  Replays a PercolationVisualizer input file without opening a window, and
+ *  records a frame after every K sites are opened (plus the final state).
+ *
+ *    - If output ends in .gif, the frames are written as one animated GIF.
+ *    - Otherwise, output is used as a file name prefix, and the frames are
+ *      written as a numbered sequence of PNG files: output-00000.png, ...
+ *
+ *  Each site is drawn as a SCALE-by-SCALE block of pixels, in the same
+ *  colors as PercolationVisualizer -raster.
+ *
+ *  Encoding a frame is much slower than opening K sites, so the frames are
+ *  handed to a separate encoder thread through a small queue of reusable
+ *  pixel buffers. The replay only waits when all the buffers are full.
+ *
+ *  e.g. java PercolationRecorder wayne98.txt 20 wayne98.gif
+ ****************************************************************************/
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+public class PercolationRecorder {
+
+    // size of the recorded image is about this many pixels across
+    private static final int TARGET_SIZE = 512;
+
+    // number of pixel buffers shared between the replay and the encoder thread
+    private static final int BUFFERS = 8;
+
+    // time between frames of an animated GIF, in hundredths of a second
+    private static final int GIF_DELAY = 2;
+
+    // a zero-length frame tells the encoder thread that the replay is over. On the free queue, it
+    // tells the replay that the encoder thread has failed (see record())
+    private static final int[] END = new int[0];
+
+    private final int N, scale;
+    private final String output;
+    private final boolean gif;
+    private final BlockingQueue<int[]> free = new ArrayBlockingQueue<int[]>(BUFFERS);
+    private final BlockingQueue<int[]> frames = new ArrayBlockingQueue<int[]>(BUFFERS);
+    private volatile Throwable failure;     // set by the encoder thread if it fails, e.g. if a frame can't be written
+    private int framesWritten;              // only used by the encoder thread
+
+    /**
+     * @param N the grid size of the percolation system being recorded.
+     * @param output the name of the .gif file, or the prefix of the .png files, to write.
+     */
+    public PercolationRecorder(int N, String output) {
+        this.N = N;
+        this.scale = Math.max(1, TARGET_SIZE / N);
+        this.output = output;
+        this.gif = output.toLowerCase().endsWith(".gif");
+        for (int k = 0; k < BUFFERS; k++) free.add(new int[N*N]);
+    }
+
+    /**
+     * Method: record
+     *         Opens every site read from in, recording a frame after every k sites.
+     * @param in the input, positioned just after the grid size.
+     * @param k the number of sites to open between frames.
+     * @return the number of frames written.
+     * @throws IOException if a frame could not be written.
+     * @throws InterruptedException if interrupted while waiting for the encoder thread.
+     */
+    public int record(In in, int k) throws IOException, InterruptedException {
+        if (k <= 0) throw new java.lang.IllegalArgumentException("Please use a positive K value.");
+        Thread encoder = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    encode();
+                }
+                catch (Throwable e) {   // whatever goes wrong, the replay must not wait forever for this thread
+                    failure = e;
+                    frames.clear();     // release the replay if it is waiting to hand over a frame...
+                    free.clear();
+                    free.add(END);      // ...or waiting for a buffer. See capture()
+                }
+            }
+        }, "encoder");
+        encoder.start();
+
+        Percolation perc = new Percolation(N);
+        long[] full = new long[(N*N + 63) / 64];
+        long[] open = new long[(N*N + 63) / 64];
+        int sinceLastFrame = 0;
+        capture(perc, full, open);   // first frame: all sites blocked
+        while (!in.isEmpty() && failure == null) {
+            int i = in.readInt();
+            int j = in.readInt();
+            perc.open(i, j);
+            if (++sinceLastFrame == k) {
+                capture(perc, full, open);
+                sinceLastFrame = 0;
+            }
+        }
+        if (sinceLastFrame > 0) capture(perc, full, open);   // final state
+
+        if (failure == null) frames.put(END);
+        encoder.join();
+        if (failure instanceof IOException)    throw (IOException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error)          throw (Error) failure;
+        if (failure != null)                   throw new IOException("Could not write " + output, failure);
+        return framesWritten;
+    }
+
+    // hand the current state of perc to the encoder thread
+    private void capture(Percolation perc, long[] full, long[] open) throws InterruptedException {
+        int[] argb = free.take();   // waits only if the encoder is BUFFERS frames behind
+        if (argb == END) {          // encoder thread has failed. Leave END in place for the next call
+            free.put(END);
+            return;
+        }
+        perc.snapshotFull(full);
+        perc.snapshotOpen(open);
+        PercolationVisualizer.toPixels(full, open, N, argb);
+        frames.put(argb);
+    }
+
+    // encoder thread: write frames until the END frame arrives
+    private void encode() throws IOException, InterruptedException {
+        /* Only three colors are ever used, so each frame is stored as an indexed image. This avoids color
+         * quantization when writing GIFs, and makes the PNG files small. */
+        int[] palette = { PercolationVisualizer.BLOCKED_PIXEL, PercolationVisualizer.OPEN_PIXEL, PercolationVisualizer.FULL_PIXEL };
+        IndexColorModel colors = new IndexColorModel(2, palette.length, palette, 0, false, -1, DataBufferByte.TYPE_BYTE);
+        BufferedImage image = new BufferedImage(N*scale, N*scale, BufferedImage.TYPE_BYTE_BINARY, colors);
+
+        ImageWriter writer = null;
+        ImageOutputStream stream = null;
+        IIOMetadata metadata = null;
+        if (gif) {
+            writer = ImageIO.getImageWritersByFormatName("gif").next();
+            stream = ImageIO.createImageOutputStream(new File(output));
+            if (stream == null) throw new IOException("Cannot write to " + output);
+            writer.setOutput(stream);
+            writer.prepareWriteSequence(null);
+            metadata = gifMetadata(writer, image);
+        }
+
+        try {
+            while (true) {
+                int[] argb = frames.take();
+                if (argb == END) break;
+                paint(argb, palette, image);
+                free.put(argb);   // the pixels have been copied into image, so the buffer can be reused
+
+                if (gif) writer.writeToSequence(new IIOImage(image, null, metadata), null);
+                else     ImageIO.write(image, "png", new File(String.format("%s-%05d.png", output, framesWritten)));
+                framesWritten++;
+            }
+            if (gif) writer.endWriteSequence();
+        }
+        finally {
+            if (stream != null) stream.close();
+            if (writer != null) writer.dispose();
+        }
+    }
+
+    // copy one pixel per site from argb into image, as a scale-by-scale block of palette indices per site
+    private void paint(int[] argb, int[] palette, BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        for (int row = 0; row < N; row++) {
+            for (int col = 0; col < N; col++) {
+                int pixel = argb[row*N + col];
+                int index = 0;
+                while (palette[index] != pixel) index++;
+                for (int y = row*scale; y < (row + 1)*scale; y++)
+                    for (int x = col*scale; x < (col + 1)*scale; x++)
+                        raster.setSample(x, y, 0, index);
+            }
+        }
+    }
+
+    // frame delay and "loop forever" settings for an animated GIF
+    private static IIOMetadata gifMetadata(ImageWriter writer, BufferedImage image) throws IOException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), null);
+        String format = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+        IIOMetadataNode control = child(root, "GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", Integer.toString(GIF_DELAY));
+        control.setAttribute("transparentColorIndex", "0");
+
+        IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+        loop.setAttribute("applicationID", "NETSCAPE");
+        loop.setAttribute("authenticationCode", "2.0");
+        loop.setUserObject(new byte[] { 1, 0, 0 });   // sub-block 1, loop count 0 = forever
+        child(root, "ApplicationExtensions").appendChild(loop);
+
+        metadata.setFromTree(format, root);
+        return metadata;
+    }
+
+    // the child of node with the given name, created if it doesn't exist yet
+    private static IIOMetadataNode child(IIOMetadataNode node, String name) {
+        for (int k = 0; k < node.getLength(); k++) {
+            if (node.item(k).getNodeName().equalsIgnoreCase(name)) return (IIOMetadataNode) node.item(k);
+        }
+        IIOMetadataNode child = new IIOMetadataNode(name);
+        node.appendChild(child);
+        return child;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        In in = new In(args[0]);      // input file
+        int K = Integer.parseInt(args[1]);
+        int N = in.readInt();         // N-by-N percolation system
+        long startTime = System.currentTimeMillis();
+        PercolationRecorder recorder = new PercolationRecorder(N, args[2]);
+        int count = recorder.record(in, K);
+        long endTime = System.currentTimeMillis();
+        System.out.printf("Wrote %s frames to %s in %s millisecs\n", count, args[2], endTime - startTime);
+    }
+}
@@ -2,7 +2,7 @@
  * Class: PercolationStats.java
  * @author Yury Park
  *
- * This class - Runs multiple trials using Percolation.java class and outputs
+ * This class - Runs multiple trials using Percolation.java class (or another engine, see PercolationFactory.java) and outputs
  *              the mean, standard deviation and 95% confidence interval to the console.
  */
 public class PercolationStats {
@@ -10,59 +10,99 @@ public class PercolationStats {
 	private int n, t;	//will use n * n grid, and will run the trial t times.
 	private double mean, stddev, confidenceLo, confidenceHi;	//these will be output to console.
 
+	/* clusterSizeTotals[s] = the number of clusters of exactly s sites, at the moment the grid percolated, added up over all
+	 * the trials. Null unless the cluster sizes were recorded. See 4-arg constructor. */
+	private long[] clusterSizeTotals;
+
 	/**
-	 * 2-arg constructor.
+	 * 2-arg constructor. Runs site percolation trials.
 	 * @param N we will build a N * N grid.
 	 * @param T we will run the trial T times.
 	 */
 	public PercolationStats(int N, int T)     // perform T independent experiments on an N-by-N grid
+	{
+		this(N, T, false);
+	}
+
+	/**
+	 * 3-arg constructor.
+	 * @param N we will build a N * N grid.
+	 * @param T we will run the trial T times.
+	 * @param bond true to run bond percolation trials (see BondPercolation.java), where the threshold is the fraction of
+	 *        BONDS that are open when the grid percolates, false to run site percolation trials (see Percolation.java).
+	 */
+	public PercolationStats(int N, int T, boolean bond)
+	{
+		this(N, T, bond, false);
+	}
+
+	/**
+	 * 4-arg constructor.
+	 * @param N we will build a N * N grid.
+	 * @param T we will run the trial T times.
+	 * @param bond true to run bond percolation trials (see BondPercolation.java), false to run site percolation trials.
+	 *        Bond percolation trials need N >= 2 (see BondPercolation constructor).
+	 * @param recordClusterSizes true to also record the cluster size distribution at the threshold of every site percolation
+	 *        trial. See clusterSizeDistribution() method. Ignored for bond percolation trials.
+	 */
+	public PercolationStats(int N, int T, boolean bond, boolean recordClusterSizes)
 	{
 		n = N;
 		t = T;
 
 		/* Be sure N and T are valid values. */
 		if (n <= 0 || t <= 0) throw new java.lang.IllegalArgumentException("Please use positive N and T values.");
+		if (bond && n < 2) throw new java.lang.IllegalArgumentException("Please use N >= 2 for bond percolation: a 1 x 1 grid has no bonds.");
 
 		/* Initialize array to keep track of the fraction of open grids for every trial run. */
 		fractionOfOpenGridsArr = new double[t];
 
+		/* The order in which to open the sites (or bonds). Each trial shuffles it, and then opens the sites (or bonds) in that
+		 * order until the grid percolates. Unlike picking sites at random and trying again whenever the site picked is already
+		 * open, this takes exactly one random number per site (or bond), however many are already open. */
+		int[] order = new int[bond ? 2 * n * (n - 1) : n * n];
+		for (int k = 0; k < order.length; k++) order[k] = k;
+		java.util.Random random = new java.util.Random();
+
 		/* Run the trials a total of T times! */
 		for (int i = 0; i < T; i++) {
 			System.out.printf("Running trial #%s...\n", i);
-			Percolation p = new Percolation(n);	//initialize new Percolation object
-			int numOfOpenGrids = 0;	//initialize the number of open grids.
+			shuffle(order, random);
+
+			if (bond) {
+				BondPercolation p = new BondPercolation(n);	//initialize new BondPercolation object
+				for (int k = 0; !p.percolates(); k++) p.openBond(order[k]);	/* Run until we have a percolation. */
+				fractionOfOpenGridsArr[i] = p.numberOfOpenBonds() / (double) p.numberOfBonds();
+				System.out.printf("The system now percolates! The number of open bonds is %s. (%s%% of all bonds)\n",
+						p.numberOfOpenBonds(), fractionOfOpenGridsArr[i] * 100);
+			}
+			else {
+				PercolationModel p = PercolationFactory.create(n);	//initialize new Percolation object (or the engine chosen by the user)
 
-			/* Run until we have a percolation. */
-			while (!p.percolates()) {
+				/* Percolation.java can keep the cluster size distribution up to date as it goes, which is cheapest to turn on
+				 * while the grid is still empty. */
+				if (recordClusterSizes && p instanceof Percolation) ((Percolation) p).trackClusterSizes();
 
-				/* Come up with a random grid to open. Note that
-				 * valid values are between 1 and n, inclusive.
+				/* Run until we have a percolation. Note that the site with ID k is at row k / n + 1 and col k % n + 1.
 				 * (Due to the way Percolation.java class is coded, we need to
 				 * use row and col indices between 1 and n,
 				 * NOT rowIndex and colIndex between 0 and n - 1. */
-				int gridToOpenRow = (int) (Math.random() * n) + 1;	//between 1 and n
-				int gridToOpenCol = (int) (Math.random() * n) + 1;
-
-				/* If the random grid we obtained above is already open,
-				 * get another random grid. Keep doing this until we
-				 * get a random grid that is closed. */
-				while (p.isOpen(gridToOpenRow, gridToOpenCol)) {
-					gridToOpenRow = (int) (Math.random() * n) + 1;	//between 1 and n
-					gridToOpenCol = (int) (Math.random() * n) + 1;
-				}
+				for (int k = 0; !p.percolates(); k++) p.open(order[k] / n + 1, order[k] % n + 1);
 
-				/* Open grid. */
-				p.open(gridToOpenRow, gridToOpenCol);
-				numOfOpenGrids++;	//increment num of open grids.
-//				System.out.printf("Grid at (%s,%s) aka (index %s, index %s) is now open.\n",
-//						gridToOpenRow, gridToOpenCol, gridToOpenRow - 1, gridToOpenCol - 1);
-			}
-			//end while
+				/* Every site in the order is still closed when its turn comes, so the engine's own count is the number of opens. */
+				fractionOfOpenGridsArr[i] = p.numberOfOpenSites() / (double) (n*n);
 
-			fractionOfOpenGridsArr[i] = numOfOpenGrids / (double) (n*n);
+				/* Record the cluster size distribution at the threshold. The other engines don't keep track of their clusters, so
+				 * their open sites are labeled afterwards with HoshenKopelman.java, in one pass over the grid. */
+				if (recordClusterSizes) {
+					if (clusterSizeTotals == null) clusterSizeTotals = new long[n * n + 1];
+					if (p instanceof Percolation) ((Percolation) p).addClusterSizeCounts(clusterSizeTotals);
+					else addClusterSizeCounts(p, clusterSizeTotals);
+				}
 
-			System.out.printf("The system now percolates! The number of open grids is %s. (%s%% of all grids)\n",
-					numOfOpenGrids, fractionOfOpenGridsArr[i] * 100);
+				System.out.printf("The system now percolates! The number of open grids is %s. (%s%% of all grids)\n",
+						p.numberOfOpenSites(), fractionOfOpenGridsArr[i] * 100);
+			}
 		}
 		//end for i
 
@@ -81,6 +121,37 @@ public class PercolationStats {
 		this.confidenceLo = this.mean - ((1.96 * this.stddev) / Math.sqrt(this.t));
 		this.confidenceHi = this.mean + ((1.96 * this.stddev) / Math.sqrt(this.t));
 	}
+	/**
+	 * Method: addClusterSizeCounts
+	 *         Adds the cluster size distribution of the given engine to the given totals, i.e. totals[s] += the number of clusters
+	 *         of exactly s sites, using HoshenKopelman.java on the engine's open sites. For WrappingPercolation.java, clusters
+	 *         that only join across the periodic boundaries are counted as separate clusters.
+	 */
+	private void addClusterSizeCounts(PercolationModel p, long[] totals) {
+		long[] open = new long[(n * n + 63) / 64];
+		for (int k = 0; k < n * n; k++) {
+			if (p.isOpen(k / n + 1, k % n + 1)) open[k >> 6] |= 1L << k;
+		}
+		for (java.util.Map.Entry<Integer, Integer> entry : new HoshenKopelman(open, n).sizeHistogram().entrySet()) {
+			totals[entry.getKey()] += entry.getValue();
+		}
+	}
+
+	/**
+	 * Method: shuffle
+	 *         Rearranges the given array in a uniformly random order (Fisher-Yates shuffle).
+	 * @param a the array to shuffle.
+	 * @param random the random number generator to use.
+	 */
+	private static void shuffle(int[] a, java.util.Random random) {
+		for (int k = a.length - 1; k > 0; k--) {
+			int r = random.nextInt(k + 1);
+			int temp = a[k];
+			a[k] = a[r];
+			a[r] = temp;
+		}
+	}
+
 	public double mean()                      // sample mean of percolation threshold
 	{
 		return this.mean;
@@ -101,22 +172,50 @@ public class PercolationStats {
 		return this.confidenceHi;
 	}
 
+	/**
+	 * Method: clusterSizeDistribution
+	 *         The cluster size distribution n_s at the percolation threshold: the average number of clusters of exactly s sites
+	 *         per site of the grid, over all the trials, measured at the moment each trial's grid first percolated.
+	 *         The spanning cluster is included.
+	 * @return an array of n * n + 1 entries, where entry s is n_s (entry 0 is 0). An empty array if the cluster sizes were not
+	 *         recorded (see 4-arg constructor), e.g. for bond percolation trials, or if no trial was run.
+	 */
+	public double[] clusterSizeDistribution()
+	{
+		if (clusterSizeTotals == null || t == 0) return new double[0];
+		double[] distribution = new double[clusterSizeTotals.length];
+		for (int s = 1; s < distribution.length; s++) distribution[s] = clusterSizeTotals[s] / ((double) t * n * n);
+		return distribution;
+	}
+
 	/* Test client. Run with 2 parameters either from the command prompt
 	 * or from eclipse by going to run -> run configurations -> arguments tab ->
 	 * type in ${string_prompt} under the window.
 	 * N = the number of rows for the square grid.
-	 * T = number of trials to run. */
+	 * T = number of trials to run.
+	 * Add a 3rd parameter, bond, to run bond percolation trials instead of site percolation trials,
+	 * or sizes, to also print the cluster size distribution at the threshold of the site percolation trials.
+	 * Add -engine=NAME to run the site percolation trials with another engine than Percolation.java (see PercolationFactory.java). */
 	public static void main(String[] args)
 	{
 		int N = 1;
 		int T = 0;
 		try {
+			args = PercolationFactory.useEngineFlag(args);
 			N = Integer.parseInt(args[0]);
 			T = Integer.parseInt(args[1]);
-			PercolationStats ps = new PercolationStats(N, T);
+			boolean bond = args.length > 2 && args[2].equals("bond");
+			boolean sizes = args.length > 2 && args[2].equals("sizes");
+			PercolationStats ps = new PercolationStats(N, T, bond, sizes);
 			System.out.printf("\nThe mean is: %s\n", ps.mean());
 			System.out.printf("The standard deviation is: %s\n", ps.stddev());
 			System.out.printf("95%% confidence interval: %s, %s", ps.confidenceLo(), ps.confidenceHi());
+			if (sizes) {
+				/* Print the cluster size distribution at the threshold, for cluster sizes 1, 2, 4, 8, ... */
+				double[] ns = ps.clusterSizeDistribution();
+				System.out.printf("\nCluster size distribution at the threshold (clusters of s sites per site):\n");
+				for (int s = 1; s < ns.length; s *= 2) System.out.printf("n_%s = %s\n", s, ns[s]);
+			}
 		}
 		catch (java.lang.ArrayIndexOutOfBoundsException ex) {
 			System.out.println(ex + ". Please provide command-line arguments N and T. Exiting...");
@@ -1,7 +1,7 @@
 /****************************************************************************
  *  Compilation:  javac PercolationVisualizer.java
  *  Execution:    java PercolationVisualizer input.txt
- *  Dependencies: Percolation.java StdDraw.java In.java
+ *  Dependencies: PercolationFactory.java StdDraw.java In.java
  *
  *  This program takes the name of a file as a command-line argument.
  *  From that file, it
@@ -20,6 +20,23 @@
  *  java PercolationVisualizer {text_file}.
  *
  * where {text_file} can be replaced with the text files found in the root directory.
+ *
+ * Optionally, add a drawing mode after the file name:
+ *  java PercolationVisualizer {text_file} -incremental
+ *      repaints only the sites that changed after each site is opened, instead of redrawing the whole grid.
+ *  java PercolationVisualizer {text_file} -raster
+ *      redraws the whole grid as one image (one pixel per site, scaled up to fill the window) instead of one square per site.
+ *      Grids with more sites across than the window has pixels are downsampled, so that each pixel shows the fraction
+ *      of full (light blue) and open (white) sites in a block of sites. This bounds the cost of the drawing itself by
+ *      the size of the window, but every open() is still followed by a snapshot of all N*N sites, so this mode is
+ *      only practical up to N of a few hundred. Use -threaded for larger grids.
+ *  java PercolationVisualizer {text_file} -threaded
+ *      opens the sites on a separate thread without any delay, and redraws the latest state (as in -raster mode)
+ *      60 times a second, independently of how fast the sites are being opened. With Percolation.java, each frame
+ *      costs time and memory bounded by the size of the window, whatever N is (see animate()).
+ *
+ * Add -engine=NAME to use another percolation engine than Percolation.java (see PercolationFactory.java), e.g.
+ *  java PercolationVisualizer {text_file} -raster -engine=padded
  */
 import java.awt.Font;
 
@@ -28,25 +45,122 @@ public class PercolationVisualizer {
     // delay in miliseconds (controls animation speed)
     private static final int DELAY = 3; //3 millisecs delay
 
+    // number of pixels across the grid in the default 512-by-512 window, which leaves a 5% border on each side.
+    // larger grids are downsampled to this size in -raster and -threaded mode (see drawSnapshot())
+    private static final int LOD_PIXELS = (int) (512 / 1.1);
+
+    // frames per second for -threaded mode (see animate())
+    private static final int FRAME_RATE = 60;
+
+    // in -threaded mode, the simulation thread spends at most this percentage of its time capturing frames
+    private static final int MAX_CAPTURE_PERCENT = 10;
+
+    // full and open bitmaps of the latest frame (see Percolation.snapshotFull()), reused across frames
+    private static long[] fullBits = new long[0], openBits = new long[0];
+
+    // fill fullBits and openBits from perc, reallocating them if N has changed.
+    // Percolation.java fills them in one pass; other engines are asked about every site
+    private static void snapshot(PercolationModel perc, int N) {
+        snapshot(perc, N, 0, 0, N);
+    }
+
+    // fill fullBits and openBits with the size-by-size block of sites with upper left corner at (row0, col0)
+    // (both 0-based), reallocating them if the size has changed
+    private static void snapshot(PercolationModel perc, int N, int row0, int col0, int size) {
+        int words = (size*size + 63) / 64;
+        if (fullBits.length != words) {
+            fullBits = new long[words];
+            openBits = new long[words];
+        }
+        snapshot(perc, N, row0, col0, size, fullBits, openBits);
+    }
+
+    // fill full and open with the size-by-size block of sites with upper left corner at (row0, col0)
+    // (both 0-based), row by row, so that bit r*size + c is site (row0 + r + 1, col0 + c + 1)
+    private static void snapshot(PercolationModel perc, int N, int row0, int col0, int size, long[] full, long[] open) {
+        if (perc instanceof Percolation && size == N) {
+            ((Percolation) perc).snapshotFull(full);
+            ((Percolation) perc).snapshotOpen(open);
+            return;
+        }
+        if (perc instanceof Percolation) {
+            ((Percolation) perc).snapshotFull(full, row0, col0, size);
+            ((Percolation) perc).snapshotOpen(open, row0, col0, size);
+            return;
+        }
+        java.util.Arrays.fill(full, 0);
+        java.util.Arrays.fill(open, 0);
+        for (int k = 0; k < size*size; k++) {
+            int i = row0 + k / size + 1, j = col0 + k % size + 1;
+            if (perc.isFull(i, j)) full[k >>> 6] |= 1L << k;
+            if (perc.isOpen(i, j)) open[k >>> 6] |= 1L << k;
+        }
+    }
+
+    // one frame of -threaded mode: the per-pixel counts of the whole grid (see BlockCounts) plus the status line
+    private static final class Frame {
+        final BlockCounts counts = new BlockCounts();
+        int opened;
+        boolean percolates;
+
+        // copy the state of perc, whose counts are live. O(P^2) if live is up to date, O(N^2) if it is stale
+        void capture(PercolationModel perc, int N, BlockCounts live) {
+            live.view(perc, N, 0, 0, N, Math.min(N, LOD_PIXELS));
+            counts.copyFrom(live);
+            opened = perc.numberOfOpenSites();
+            percolates = perc.percolates();
+        }
+    }
+
+    // hands frames from the simulation thread to the drawing thread in animate(). Each thread keeps a frame
+    // of its own; publish() and take() trade it for the one in between, so the lock is only held for a swap.
+    private static final class FrameExchange {
+        private Frame ready;
+        private boolean fresh;                // ready holds a frame the drawing thread hasn't taken yet
+        volatile boolean wanted = true;       // the drawing thread is waiting for a newer frame
+
+        FrameExchange() {
+            ready = new Frame();
+        }
+
+        // swap in a newly captured frame, returning a frame to capture the next one into
+        synchronized Frame publish(Frame back) {
+            Frame spare = ready;
+            ready = back;
+            fresh = true;
+            return spare;
+        }
+
+        // swap out the latest frame if there is a newer one than front, otherwise keep front
+        synchronized Frame take(Frame front) {
+            if (!fresh) return front;
+            Frame latest = ready;
+            ready = front;
+            fresh = false;
+            return latest;
+        }
+    }
+
     // draw N-by-N percolation system
-    public static void draw(Percolation perc, int N) {
+    public static void draw(PercolationModel perc, int N) {
         StdDraw.clear();
         StdDraw.setPenColor(StdDraw.BLACK);
         StdDraw.setXscale(-.05*N, 1.05*N);
         StdDraw.setYscale(-.05*N, 1.05*N);   // leave a border to write text
         StdDraw.filledSquare(N/2.0, N/2.0, N/2.0);
 
+        // take a snapshot of the whole grid in one pass instead of N*N calls to isFull() and isOpen()
+        snapshot(perc, N);
+
         // draw N-by-N grid
-        int opened = 0;
         for (int row = 1; row <= N; row++) {
             for (int col = 1; col <= N; col++) {
-                if (perc.isFull(row, col)) {
+                int id = (row - 1) * N + (col - 1);
+                if ((fullBits[id >>> 6] & (1L << id)) != 0) {
                     StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
-                    opened++;
                 }
-                else if (perc.isOpen(row, col)) {
+                else if ((openBits[id >>> 6] & (1L << id)) != 0) {
                     StdDraw.setPenColor(StdDraw.WHITE);
-                    opened++;
                 }
                 else
                     StdDraw.setPenColor(StdDraw.BLACK);
@@ -57,30 +171,389 @@ public class PercolationVisualizer {
         // write status text
         StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
         StdDraw.setPenColor(StdDraw.BLACK);
-        StdDraw.text(.25*N, -N*.025, opened + " open sites");
+        StdDraw.text(.25*N, -N*.025, perc.numberOfOpenSites() + " open sites");
         if (perc.percolates()) StdDraw.text(.75*N, -N*.025, "percolates");
         else                   StdDraw.text(.75*N, -N*.025, "does not percolate");
 
     }
 
+    // pixel colors for drawRaster(), as packed 0xAARRGGBB values. These are StdDraw.BOOK_LIGHT_BLUE, WHITE and BLACK,
+    // spelled out so that toPixels() can be used without opening a window (see PercolationRecorder.java)
+    public static final int FULL_PIXEL    = 0xFF67C6F3;
+    public static final int OPEN_PIXEL    = 0xFFFFFFFF;
+    public static final int BLOCKED_PIXEL = 0xFF000000;
+
+    // convert full and open bitmaps (see Percolation.snapshotFull()) of an N-by-N system to one pixel per site
+    public static void toPixels(long[] full, long[] open, int N, int[] argb) {
+        for (int id = 0; id < N*N; id++) {
+            long bit = 1L << id;
+            if      ((full[id >>> 6] & bit) != 0) argb[id] = FULL_PIXEL;
+            else if ((open[id >>> 6] & bit) != 0) argb[id] = OPEN_PIXEL;
+            else                                  argb[id] = BLOCKED_PIXEL;
+        }
+    }
+
+    // draw N-by-N percolation system as a single image, one pixel per site
+    public static void drawRaster(PercolationModel perc, int N, int[] argb) {
+        snapshot(perc, N);
+        drawSnapshot(fullBits, openBits, N, perc.numberOfOpenSites(), perc.percolates(), argb);
+    }
+
+    // downsample the size-by-size block of sites with upper left corner at (row0, col0) (both 0-based) of an
+    // N-by-N system to P-by-P pixels, where P <= size. Each pixel covers about size/P by size/P sites, and is
+    // colored by the fraction of those sites that are full (light blue), open (white) and blocked (black).
+    public static void toBlockPixels(long[] full, long[] open, int N, int row0, int col0, int size, int P, int[] argb) {
+        int[] pixelOfCol = new int[size];   // which pixel column each site column falls in
+        int[] colsInPixel = new int[P];     // how many site columns each pixel column covers
+        for (int c = 0; c < size; c++) {
+            pixelOfCol[c] = (int) ((long) c * P / size);
+            colsInPixel[pixelOfCol[c]]++;
+        }
+        int[] fullCount = new int[P];
+        int[] openCount = new int[P];
+        int r = 0;
+        for (int py = 0; py < P; py++) {
+            java.util.Arrays.fill(fullCount, 0);
+            java.util.Arrays.fill(openCount, 0);
+            int rowsInPixel = 0;
+            for (; r < size && (int) ((long) r * P / size) == py; r++, rowsInPixel++) {
+                int id = (row0 + r) * N + col0;
+                for (int c = 0; c < size; c++, id++) {
+                    long bit = 1L << id;
+                    if      ((full[id >>> 6] & bit) != 0) fullCount[pixelOfCol[c]]++;
+                    else if ((open[id >>> 6] & bit) != 0) openCount[pixelOfCol[c]]++;
+                }
+            }
+            for (int px = 0; px < P; px++) {
+                double sites = (double) rowsInPixel * colsInPixel[px];
+                argb[py*P + px] = blockColor(fullCount[px] / sites, openCount[px] / sites);
+            }
+        }
+    }
+
+    // the color of a pixel covering a block of sites, a fraction f of which are full and a fraction o open but not full
+    private static int blockColor(double f, double o) {
+        return 0xFF000000 | blend(FULL_PIXEL, OPEN_PIXEL, f, o, 16)
+                          | blend(FULL_PIXEL, OPEN_PIXEL, f, o, 8)
+                          | blend(FULL_PIXEL, OPEN_PIXEL, f, o, 0);
+    }
+
+    // one color channel (selected by shift) of f parts color1 plus o parts color2, over a black background
+    private static int blend(int color1, int color2, double f, double o, int shift) {
+        int channel = (int) Math.round(f * ((color1 >> shift) & 0xFF) + o * ((color2 >> shift) & 0xFF));
+        return Math.min(255, channel) << shift;
+    }
+
+    // the number of full and open sites in each pixel of a downsampled view (as drawn by toBlockPixels()), kept up to date
+    // by opened() as sites are opened, so that drawing the view again costs O(P^2) rather than a snapshot of all its sites.
+    // Only Percolation.java reports which sites became full (see Percolation.newlyFullSites()); with other engines, opened()
+    // marks the counts stale, and the next call to view() rebuilds them from a snapshot of the view.
+    public static final class BlockCounts {
+        private PercolationModel perc;
+        private int N, row0, col0, V, P;
+        private int openSites;                  // perc.numberOfOpenSites() as of the last update, to skip sites already open
+        private boolean stale = true;
+        private int[] pixelOf = new int[0];     // which pixel row (or column) each row (or column) of the view falls in
+        private int[] sitesAcross = new int[0]; // how many rows (or columns) of the view each pixel row (or column) covers
+        private int[] fullCount = new int[0], openCount = new int[0];   // open counts include the full sites
+        private long[] full = new long[0], open = new long[0];          // scratch space for a snapshot of the view
+        private int[] changed = new int[16];    // scratch space for Percolation.newlyFullSites(), grown on demand
+
+        // make these the counts of the V-by-V block of sites with upper left corner at (row0, col0) (both 0-based) of perc,
+        // downsampled to P-by-P pixels. Takes O(V^2) time if the counts are stale or were for another view, else none.
+        // Turns on Percolation.trackComponents(), so that opened() can keep them up to date from then on
+        public void view(PercolationModel perc, int N, int row0, int col0, int V, int P) {
+            if (!stale && perc == this.perc && N == this.N && row0 == this.row0 && col0 == this.col0 && V == this.V && P == this.P) return;
+            if (perc instanceof Percolation) ((Percolation) perc).trackComponents();
+            this.perc = perc;
+            this.N = N;
+            this.row0 = row0;
+            this.col0 = col0;
+            this.V = V;
+            this.P = P;
+            openSites = perc.numberOfOpenSites();
+            if (pixelOf.length < V) pixelOf = new int[V];
+            if (sitesAcross.length < P) sitesAcross = new int[P];
+            if (fullCount.length < P*P) {
+                fullCount = new int[P*P];
+                openCount = new int[P*P];
+            }
+            java.util.Arrays.fill(sitesAcross, 0, P, 0);
+            for (int c = 0; c < V; c++) {
+                pixelOf[c] = (int) ((long) c * P / V);
+                sitesAcross[pixelOf[c]]++;
+            }
+
+            int words = (V*V + 63) / 64;
+            if (full.length < words) {
+                full = new long[words];
+                open = new long[words];
+            }
+            snapshot(perc, N, row0, col0, V, full, open);
+            java.util.Arrays.fill(fullCount, 0, P*P, 0);
+            java.util.Arrays.fill(openCount, 0, P*P, 0);
+            for (int r = 0, k = 0; r < V; r++) {
+                int rowStart = pixelOf[r]*P;
+                for (int c = 0; c < V; c++, k++) {
+                    long bit = 1L << k;
+                    if ((open[k >>> 6] & bit) == 0) continue;
+                    openCount[rowStart + pixelOf[c]]++;
+                    if ((full[k >>> 6] & bit) != 0) fullCount[rowStart + pixelOf[c]]++;
+                }
+            }
+            stale = false;
+        }
+
+        // update the counts after perc.open(i, j), in time proportional to the number of sites that changed
+        public void opened(PercolationModel perc, int i, int j) {
+            if (stale || perc != this.perc || perc.numberOfOpenSites() == openSites) return;
+            openSites = perc.numberOfOpenSites();
+            if (!(perc instanceof Percolation)) {
+                stale = true;
+                return;
+            }
+            Percolation p = (Percolation) perc;
+            count(openCount, (i - 1) * N + (j - 1));
+            int n = p.numberOfNewlyFullSites();
+            if (changed.length < n) changed = new int[Math.max(n, 2 * changed.length)];
+            p.newlyFullSites(changed);
+            for (int k = 0; k < n; k++) count(fullCount, changed[k]);
+        }
+
+        // add one to the given count of the pixel that site id falls in, if it is in the view
+        private void count(int[] counts, int id) {
+            int r = id / N - row0, c = id % N - col0;
+            if (r < 0 || r >= V || c < 0 || c >= V) return;
+            counts[pixelOf[r]*P + pixelOf[c]]++;
+        }
+
+        // the number of pixels across the view
+        public int pixels() {
+            return P;
+        }
+
+        // color the P-by-P pixels of the view, as toBlockPixels() would
+        public void toPixels(int[] argb) {
+            for (int py = 0; py < P; py++) {
+                for (int px = 0; px < P; px++) {
+                    double sites = (double) sitesAcross[py] * sitesAcross[px];
+                    int pixel = py*P + px;
+                    argb[pixel] = blockColor(fullCount[pixel] / sites, (openCount[pixel] - fullCount[pixel]) / sites);
+                }
+            }
+        }
+
+        // make these counts a copy of other's, in O(P^2) time. They are not kept up to date by opened() until view() is called
+        void copyFrom(BlockCounts other) {
+            N = other.N;
+            V = other.V;
+            P = other.P;
+            if (sitesAcross.length < P) sitesAcross = new int[P];
+            if (fullCount.length < P*P) {
+                fullCount = new int[P*P];
+                openCount = new int[P*P];
+            }
+            System.arraycopy(other.sitesAcross, 0, sitesAcross, 0, P);
+            System.arraycopy(other.fullCount, 0, fullCount, 0, P*P);
+            System.arraycopy(other.openCount, 0, openCount, 0, P*P);
+            stale = true;
+        }
+    }
+
+    // draw a snapshot (full and open bitmaps of the whole grid) as a single image: one pixel per site, or, if N is
+    // larger than LOD_PIXELS, one pixel per block of sites (see toBlockPixels()), so that the cost of drawing
+    // is bounded by the size of the window rather than by N*N.
+    private static void drawSnapshot(long[] full, long[] open, int N, int opened, boolean percolates, int[] argb) {
+        int P = Math.min(N, LOD_PIXELS);
+        if (P == N) toPixels(full, open, N, argb);
+        else        toBlockPixels(full, open, N, 0, 0, N, P, argb);
+        drawImage(N, P, opened, percolates, argb);
+    }
+
+    // draw the whole grid from per-pixel counts (see BlockCounts), in O(P^2) time
+    private static void drawCounts(BlockCounts counts, int N, int opened, boolean percolates, int[] argb) {
+        counts.toPixels(argb);
+        drawImage(N, counts.pixels(), opened, percolates, argb);
+    }
+
+    // draw the P-by-P pixels of argb over the whole N-by-N grid, and the status text
+    private static void drawImage(int N, int P, int opened, boolean percolates, int[] argb) {
+        StdDraw.clear();
+        StdDraw.setXscale(-.05*N, 1.05*N);
+        StdDraw.setYscale(-.05*N, 1.05*N);
+        StdDraw.drawGrid(N/2.0, N/2.0, N/2.0, N/2.0, argb, P, P);
+
+        // write status text
+        StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        StdDraw.setPenColor(StdDraw.BLACK);
+        StdDraw.text(.25*N, -N*.025, opened + " open sites");
+        if (percolates)        StdDraw.text(.75*N, -N*.025, "percolates");
+        else                   StdDraw.text(.75*N, -N*.025, "does not percolate");
+    }
+
+    // draw the V-by-V block of sites with upper left corner at (row0, col0) (both 0-based) of an N-by-N system,
+    // filling the window. Only the visible sites are looked at. If there are more of them across than the window
+    // has pixels, the view is downsampled from counts, which only need to be rebuilt (in O(V^2) time) when the view
+    // has changed since the last call, as long as counts.opened() is called after every perc.open() in between.
+    public static void drawViewport(PercolationModel perc, int N, int row0, int col0, int V, BlockCounts counts, int[] argb) {
+        StdDraw.clear();
+        StdDraw.setXscale(-.05*V, 1.05*V);
+        StdDraw.setYscale(-.05*V, 1.05*V);   // leave a border to write text
+
+        if (V <= 100) {
+            // small enough to draw one square per site, with gaps in between as in draw()
+            StdDraw.setPenColor(StdDraw.BLACK);
+            StdDraw.filledSquare(V/2.0, V/2.0, V/2.0);
+            for (int r = 0; r < V; r++) {
+                for (int c = 0; c < V; c++) {
+                    if      (perc.isFull(row0 + r + 1, col0 + c + 1)) StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
+                    else if (perc.isOpen(row0 + r + 1, col0 + c + 1)) StdDraw.setPenColor(StdDraw.WHITE);
+                    else                                              continue;
+                    StdDraw.filledSquare(c + 0.5, V - r - 0.5, 0.45);
+                }
+            }
+        }
+        else if (V <= LOD_PIXELS) {
+            // one pixel per visible site
+            for (int r = 0; r < V; r++) {
+                for (int c = 0; c < V; c++) {
+                    if      (perc.isFull(row0 + r + 1, col0 + c + 1)) argb[r*V + c] = FULL_PIXEL;
+                    else if (perc.isOpen(row0 + r + 1, col0 + c + 1)) argb[r*V + c] = OPEN_PIXEL;
+                    else                                              argb[r*V + c] = BLOCKED_PIXEL;
+                }
+            }
+            StdDraw.drawGrid(V/2.0, V/2.0, V/2.0, V/2.0, argb, V, V);
+        }
+        else {
+            // one pixel per block of visible sites
+            counts.view(perc, N, row0, col0, V, LOD_PIXELS);
+            counts.toPixels(argb);
+            StdDraw.drawGrid(V/2.0, V/2.0, V/2.0, V/2.0, argb, LOD_PIXELS, LOD_PIXELS);
+        }
+
+        // write status text
+        StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
+        StdDraw.setPenColor(StdDraw.BLACK);
+        StdDraw.text(.25*V, -V*.025, perc.numberOfOpenSites() + " open sites");
+        if (perc.percolates()) StdDraw.text(.75*V, -V*.025, "percolates");
+        else                   StdDraw.text(.75*V, -V*.025, "does not percolate");
+    }
+
+    // open the sites read from in on a separate thread, as fast as possible, while this thread draws
+    // the latest state FRAME_RATE times a second. Only the simulation thread touches perc. It keeps
+    // per-pixel counts of the whole grid (see BlockCounts) up to date as it opens sites, and whenever
+    // the drawing thread asks for a frame, it copies them into a back buffer and publishes it (see
+    // FrameExchange). The threads only share the exchange's lock, for one swap at a time, so the
+    // simulation never waits for the drawing. With Percolation.java, the counts are updated from the
+    // sites each open() changed, and a frame costs O(P^2), not O(N^2). Other engines need a full
+    // snapshot per frame, so frames are captured less often on large grids: capturing never takes
+    // more than MAX_CAPTURE_PERCENT of the simulation thread's time.
+    public static void animate(final In in, final PercolationModel perc, final int N) {
+        final FrameExchange frames = new FrameExchange();
+        Thread simulation = new Thread(new Runnable() {
+            public void run() {
+                BlockCounts live = new BlockCounts();
+                live.view(perc, N, 0, 0, N, Math.min(N, LOD_PIXELS));
+                Frame back = new Frame();
+                long nextCapture = 0;           // System.nanoTime() before which no frame is captured
+                int opens = 0;
+                while (!in.isEmpty()) {
+                    int i = in.readInt();
+                    int j = in.readInt();
+                    perc.open(i, j);
+                    live.opened(perc, i, j);
+                    // only look at the clock every 256 opens, as it costs about as much as an open()
+                    if (frames.wanted && (++opens & 255) == 0 && System.nanoTime() >= nextCapture) {
+                        long start = System.nanoTime();
+                        frames.wanted = false;
+                        back.capture(perc, N, live);
+                        back = frames.publish(back);
+                        long end = System.nanoTime();
+                        nextCapture = end + (end - start) * (100 - MAX_CAPTURE_PERCENT) / MAX_CAPTURE_PERCENT;
+                    }
+                }
+                back.capture(perc, N, live);    // always publish the final state
+                frames.publish(back);
+            }
+        }, "simulation");
+        simulation.start();
+
+        int[] argb = new int[Math.min(N, LOD_PIXELS) * Math.min(N, LOD_PIXELS)];   // one int per pixel drawn
+        Frame front = new Frame();
+        boolean finished = false;
+        while (!finished) {
+            finished = !simulation.isAlive();   // check before taking a frame, so the last frame is complete
+            Frame latest = frames.take(front);
+            if (latest != front) frames.wanted = true;  // ask for the next frame only once this one has arrived
+            front = latest;
+            if (front.counts.pixels() > 0) drawCounts(front.counts, N, front.opened, front.percolates, argb);  // none yet at first
+            StdDraw.show(1000 / FRAME_RATE);
+        }
+    }
+
+    // repaint only the sites that changed when site (i, j) was opened.
+    // assumes draw() was called earlier, so the scale and the blocked sites are already in place.
+    // only Percolation.java reports which sites changed (see Percolation.newlyFullSites()); other engines are redrawn in full
+    public static void drawChanges(PercolationModel model, int N, int i, int j, int[] changed) {
+        if (!(model instanceof Percolation)) {
+            draw(model, N);
+            return;
+        }
+        Percolation perc = (Percolation) model;
+
+        // the site that was just opened
+        if (perc.isFull(i, j)) StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
+        else                   StdDraw.setPenColor(StdDraw.WHITE);
+        StdDraw.filledSquare(j - 0.5, N - i + 0.5, 0.45);
+
+        // other sites that just became full, possibly thousands of them when a group reaches the top row
+        StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
+        int count = perc.newlyFullSites(changed);
+        for (int k = 0; k < count; k++) {
+            int row = changed[k] / N + 1;
+            int col = changed[k] % N + 1;
+            StdDraw.filledSquare(col - 0.5, N - row + 0.5, 0.45);
+        }
+
+        // erase and rewrite status text
+        StdDraw.setPenColor(StdDraw.WHITE);
+        StdDraw.filledRectangle(N/2.0, -N*.025, .55*N, .025*N);
+        StdDraw.setPenColor(StdDraw.BLACK);
+        StdDraw.text(.25*N, -N*.025, perc.numberOfOpenSites() + " open sites");
+        if (perc.percolates()) StdDraw.text(.75*N, -N*.025, "percolates");
+        else                   StdDraw.text(.75*N, -N*.025, "does not percolate");
+    }
+
     public static void main(String[] args) {
     	/* End user should input something like: greeting57.txt
     	 * or any other txt file in root directory for that matter. */
+        args = PercolationFactory.useEngineFlag(args);
         In in = new In(args[0]);      // input file
         int N = in.readInt();         // N-by-N percolation system
+        String mode = (args.length > 1) ? args[1] : "";
 
         // turn on animation mode
         StdDraw.show(0);
 
         // repeatedly read in sites to open and draw resulting system
-        Percolation perc = new Percolation(N);
+        PercolationModel perc = PercolationFactory.create(N);
+        if (mode.equals("-incremental") && perc instanceof Percolation) {
+            ((Percolation) perc).trackComponents();   // drawChanges() needs Percolation.newlyFullSites()
+        }
+        if (mode.equals("-threaded")) {
+            animate(in, perc, N);
+            return;
+        }
         draw(perc, N);
         StdDraw.show(DELAY);
+        int[] changed = new int[N*N];  // scratch space for drawChanges() and drawRaster()
         while (!in.isEmpty()) {
             int i = in.readInt();
             int j = in.readInt();
             perc.open(i, j);
-            draw(perc, N);
+            if      (mode.equals("-incremental")) drawChanges(perc, N, i, j, changed);
+            else if (mode.equals("-raster"))      drawRaster(perc, N, changed);
+            else                                  draw(perc, N);
             StdDraw.show(DELAY);
         }
     }
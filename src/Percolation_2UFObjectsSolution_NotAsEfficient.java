@@ -10,13 +10,14 @@
  *  The top virtual node is connected to all the actual nodes in the top row, and vice versa for the bottom virtual node.
  *  These virtual nodes are used to improve the time-efficiency of of the percolates() method in this class. See corresponding method comments for more details.
  */
-public class Percolation_2UFObjectsSolution_NotAsEfficient {
+public class Percolation_2UFObjectsSolution_NotAsEfficient implements PercolationModel {
 
 	/* Most comments are omitted here, except when necessary to outline differences between this class and the Percolation.java class.
 	 * See Percolation.java class comments for the rest. */
 	private boolean[] grid;	//Notice this class doesn't contain gridIsConnectedToTopRow or gridIsConnectedToBotRow arrays.
 	private int n, nTimesN, topNodeIndex, bottomNodeIndex;	//We have two additional variables to keep track of the index of the top and bottom virtual nodes.
 	private WeightedQuickUnionUF uf, uf2;	//we have TWO instances of the WeightedQuickUnionUF objects. This is where the memory efficiency suffers.
+	private int numberOfOpenSites;
 
 	public Percolation_2UFObjectsSolution_NotAsEfficient(int N) {
 		if (N <= 0)
@@ -43,6 +44,7 @@ public class Percolation_2UFObjectsSolution_NotAsEfficient {
 			throw new java.lang.IndexOutOfBoundsException();
 		int iIndex = i - 1; int jIndex = j - 1;
 		int iD = iIndex * n + jIndex;
+		if (!this.grid[iD]) numberOfOpenSites++;
 		this.grid[iD] = true;
 
 		int southNeighborID = iD + n;
@@ -144,6 +146,10 @@ public class Percolation_2UFObjectsSolution_NotAsEfficient {
 		return uf.connected(this.bottomNodeIndex, this.topNodeIndex);
 	}
 
+	public int numberOfOpenSites() {
+		return numberOfOpenSites;
+	}
+
 	/**
 	 * Method: main
 	 * Optional. For testing purposes only.
@@ -0,0 +1,112 @@
+/**
+ *  The <tt>ShortWeightedQuickUnionUF</tt> class is the same union-find data structure as
+ *  WeightedQuickUnionUF.java (weighted quick union by size, with path halving),
+ *  but it stores the parent and size arrays as <tt>short</tt>s instead of <tt>int</tt>s.
+ *  <p>
+ *  That limits it to N <= Short.MAX_VALUE = 32,767 objects (e.g. a 181 x 181 grid),
+ *  but halves its memory: 4 bytes per object instead of 8, so a 181 x 181 grid's
+ *  union-find takes about 128 KB rather than 256 KB. A Percolation.java trial then
+ *  needs about 7 bytes per site (its three boolean arrays plus this class), as long as
+ *  its optional trackComponents() and trackClusterSizes() are left off: about 230 KB
+ *  for a 181 x 181 grid, versus about 360 KB with int arrays. How much of that stays
+ *  in a core's private cache when many trials run at once depends on the CPU's
+ *  cache sizes; the smaller footprint just makes it more likely.
+ *  <p>
+ *  Percolation.java picks this class automatically for small enough grids.
+ */
+public class ShortWeightedQuickUnionUF implements UnionFind {
+    private final short[] parent;   // parent[i] = parent of i
+    private final short[] size;     // size[i] = number of objects in subtree rooted at i
+    private int count;              // number of groups of nodes.
+
+    /**
+     * Initializes an empty union-find data structure with N isolated components 0 through N-1.
+     * @throws java.lang.IllegalArgumentException if N < 0 or N > Short.MAX_VALUE
+     * @param N the number of objects
+     */
+    public ShortWeightedQuickUnionUF(int N) {
+        if (N < 0 || N > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("N = " + N + " is not between 0 and " + Short.MAX_VALUE);
+        }
+        count = N;
+        parent = new short[N];
+        size = new short[N];
+        for (int i = 0; i < N; i++) {
+            parent[i] = (short) i;
+            size[i] = 1;
+        }
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public int size(int p) {
+        return size[find(p)];
+    }
+
+    @Override
+    public int find(int p) {
+        validate(p);
+        int depth = 0, writes = 0;  // only counted when UnionFindMetrics.ENABLED.
+        while (p != parent[p]) {
+            if (UnionFindMetrics.ENABLED) {
+                depth++;
+                if (parent[p] != parent[parent[p]]) writes++;
+            }
+            parent[p] = parent[parent[p]];  // path halving. See WeightedQuickUnionUF.find().
+            p = parent[p];
+        }
+        if (UnionFindMetrics.ENABLED) UnionFindMetrics.recordFind(depth, writes);
+        return p;
+    }
+
+    // validate that p is a valid index
+    private void validate(int p) {
+        int N = this.parent.length;
+        if (p < 0 || p >= N) {
+            throw new IndexOutOfBoundsException("index " + p + " is not between 0 and " + N);
+        }
+    }
+
+    @Override
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    @Override
+    public void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) {
+            if (UnionFindMetrics.ENABLED) UnionFindMetrics.recordUnion(false);
+            return;
+        }
+        unionRoots(rootP, rootQ);
+    }
+
+    @Override
+    public int unionRoots(int rootP, int rootQ) {
+        validate(rootP);
+        validate(rootQ);
+        if (parent[rootP] != rootP || parent[rootQ] != rootQ || rootP == rootQ) {
+            throw new IllegalArgumentException("sites " + rootP + " and " + rootQ + " are not two different roots");
+        }
+        if (UnionFindMetrics.ENABLED) UnionFindMetrics.recordUnion(true);
+
+        // make smaller-sized group join the larger one. Sizes never exceed N <= Short.MAX_VALUE, so the sums fit in a short.
+        count--;
+        if (size[rootP] < size[rootQ]) {
+            parent[rootP] = (short) rootQ;
+            size[rootQ] += size[rootP];
+            return rootQ;
+        }
+        else {
+            parent[rootQ] = (short) rootP;
+            size[rootP] += size[rootQ];
+            return rootP;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Class: SpanningProbabilityStats.java
+ *
+ * This class - Estimates the probability that an N x N grid percolates when each site is open independently with probability p
+ *              (a "Bernoulli(p) grid"), by generating M random grids and counting how many percolate.
+ *              Compare with PercolationStats.java, which instead opens sites one at a time until the grid percolates.
+ *
+ *              The grids are generated in bulk, 64 sites at a time (see randomSites()), checked with HoshenKopelman.java
+ *              (which only needs O(N) memory per grid), and spread across all the cores.
+ */
+import java.util.SplittableRandom;
+
+public class SpanningProbabilityStats {
+	private int n, m;	//will use n * n grids, and will generate m of them.
+	private double p;	//probability that each site is open.
+	private int spanning;	//number of grids that percolate.
+
+	/**
+	 * 3-arg constructor.
+	 * @param N we will build N * N grids.
+	 * @param M we will generate M grids.
+	 * @param p the probability that each site is open, between 0 and 1.
+	 */
+	public SpanningProbabilityStats(int N, int M, double p) throws InterruptedException
+	{
+		/* Be sure N, M and p are valid values. */
+		if (N <= 0 || M <= 0) throw new java.lang.IllegalArgumentException("Please use positive N and M values.");
+		if (!(p >= 0 && p <= 1)) throw new java.lang.IllegalArgumentException("Please use a p value between 0 and 1.");
+		n = N;
+		m = M;
+		this.p = p;
+
+		/* Each thread generates and checks every threads-th grid, with its own random number generator, and counts how many percolate. */
+		int threads = Math.min(M, Runtime.getRuntime().availableProcessors());
+		final int[] spanningPerThread = new int[threads];
+		Thread[] workers = new Thread[threads];
+		SplittableRandom seeds = new SplittableRandom();
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			final int count = M / threads + (t < M % threads ? 1 : 0);
+			final SplittableRandom random = seeds.split();
+			workers[t] = new Thread(new Runnable() {
+				public void run() {
+					long[] open = new long[(n * n + 63) / 64];
+					for (int k = 0; k < count; k++) {
+						randomSites(open, n * n, SpanningProbabilityStats.this.p, random);
+						if (new HoshenKopelman(open, n).percolates()) spanningPerThread[thread]++;
+					}
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) worker.join();
+		for (int count : spanningPerThread) spanning += count;
+	}
+
+	/**
+	 * Method: randomSites
+	 *         Fills a bitmap (in the layout of Percolation.snapshotOpen()) with sites that are each open with probability p.
+	 *         Rather than drawing one random number per site, every random 64-bit word is split into four 16-bit chunks, and
+	 *         each chunk is compared with a threshold of p * 65536 without branching. So p is rounded to the nearest multiple
+	 *         of 1 / 65536 (about 0.000015), which is far finer than any p step used in practice.
+	 * @param open the bitmap to fill.
+	 * @param sites the number of sites. Bits past this are cleared.
+	 * @param p the probability that each site is open.
+	 * @param random the random number generator to use.
+	 */
+	public static void randomSites(long[] open, int sites, double p, SplittableRandom random) {
+		long threshold = Math.round(p * 65536);	//a chunk opens its site if it is less than this.
+		int words = (sites + 63) / 64;
+		for (int w = 0; w < words; w++) {
+			long word = 0L;
+			for (int bit = 0; bit < 64; bit += 4) {
+				long chunks = random.nextLong();
+				word |= ((( chunks         & 0xFFFF) - threshold) >>> 63) << bit;	//1 if chunk < threshold, else 0
+				word |= ((((chunks >>> 16) & 0xFFFF) - threshold) >>> 63) << (bit + 1);
+				word |= ((((chunks >>> 32) & 0xFFFF) - threshold) >>> 63) << (bit + 2);
+				word |= ((( chunks >>> 48          ) - threshold) >>> 63) << (bit + 3);
+			}
+			open[w] = word;
+		}
+		if (sites % 64 != 0) open[words - 1] &= (1L << sites) - 1;	//clear the bits past the last site
+	}
+
+	public double spanningProbability()       // fraction of the grids that percolate
+	{
+		return spanning / (double) m;
+	}
+
+	public double stddev()                    // standard error of spanningProbability()
+	{
+		double q = this.spanningProbability();
+		return Math.sqrt(q * (1 - q) / m);
+	}
+
+	public double confidenceLo()              // low  endpoint of 95% confidence interval
+	{
+		return this.spanningProbability() - 1.96 * this.stddev();
+	}
+
+	public double confidenceHi()              // high endpoint of 95% confidence interval
+	{
+		return this.spanningProbability() + 1.96 * this.stddev();
+	}
+
+	/* Test client. Run with 2 to 5 parameters:
+	 * N = the number of rows for the square grids.
+	 * M = number of grids for each value of p.
+	 * pLo, pHi, steps (optional) = the range of p values to try, and into how many equal steps to divide it.
+	 *                              Default is 0.55 to 0.65 in 10 steps.
+	 * e.g. java SpanningProbabilityStats 200 1000 0.55 0.65 10 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		try {
+			int N = Integer.parseInt(args[0]);
+			int M = Integer.parseInt(args[1]);
+			double pLo = (args.length > 2) ? Double.parseDouble(args[2]) : 0.55;
+			double pHi = (args.length > 3) ? Double.parseDouble(args[3]) : 0.65;
+			int steps = (args.length > 4) ? Integer.parseInt(args[4]) : 10;
+			long startTime = System.currentTimeMillis();
+			for (int k = 0; k <= steps; k++) {
+				double p = pLo + (pHi - pLo) * k / steps;
+				SpanningProbabilityStats sps = new SpanningProbabilityStats(N, M, p);
+				System.out.printf("p = %.4f: spanning probability %.4f, 95%% confidence interval %.4f, %.4f\n",
+						p, sps.spanningProbability(), sps.confidenceLo(), sps.confidenceHi());
+			}
+			long endTime = System.currentTimeMillis();
+			System.out.printf("Elapsed time: %s millisecs\n", endTime - startTime);
+		}
+		catch (java.lang.ArrayIndexOutOfBoundsException ex) {
+			System.out.println(ex + ". Please provide command-line arguments N and M. Exiting...");
+		}
+	}
+}
@@ -39,6 +39,8 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 
@@ -49,6 +51,7 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.image.DirectColorModel;
 import java.awt.image.WritableRaster;
 
@@ -82,7 +85,7 @@ import javax.swing.KeyStroke;
  *  @author Robert Sedgewick
  *  @author Kevin Wayne
  */
-public final class StdDraw implements ActionListener, MouseListener, MouseMotionListener, KeyListener {
+public final class StdDraw implements ActionListener, MouseListener, MouseMotionListener, MouseWheelListener, KeyListener {
 
     /**
      *  The color black.
@@ -211,6 +214,9 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     private static BufferedImage offscreenImage, onscreenImage;
     private static Graphics2D offscreen, onscreen;
 
+    // reusable pixel buffer for drawGrid()
+    private static BufferedImage gridImage;
+
     // singleton for callbacks: avoids generation of extra .class files
     private static StdDraw std = new StdDraw();
 
@@ -221,6 +227,12 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     private static boolean mousePressed = false;
     private static double mouseX = 0;
     private static double mouseY = 0;
+    private static int mouseButton = MouseEvent.NOBUTTON;
+    private static int mouseWheelRotation = 0;
+
+    // queue of mouse events for nextMouseEvent(), filled only once enableMouseEvents() is called
+    private static boolean queueMouseEvents = false;
+    private static LinkedList<MouseInput> mouseEvents = new LinkedList<MouseInput>();
 
     // queue of typed key characters
     private static LinkedList<Character> keysTyped = new LinkedList<Character>();
@@ -293,6 +305,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
 
         draw.addMouseListener(std);
         draw.addMouseMotionListener(std);
+        draw.addMouseWheelListener(std);
 
         frame.setContentPane(draw);
         frame.addKeyListener(std);    // JLabel cannot get keyboard focus
@@ -920,6 +933,47 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         draw();
     }
 
+    /**
+     * Draw a <tt>w</tt>-by-<tt>h</tt> array of pixels, scaled to fill the rectangle of
+     * given half width and half height centered on (x, y). Pixel (c, r) is
+     * <tt>argb[r*w + c]</tt>, with row 0 at the top; each pixel is a packed
+     * 0xAARRGGBB color, as returned by <tt>Color.getRGB()</tt>.
+     * <p>
+     * This is much faster than drawing <tt>w*h</tt> filled squares: the pixels are
+     * copied straight into a reusable image buffer, and the image is drawn with a
+     * single <tt>drawImage()</tt> call (scaled with nearest-neighbor interpolation,
+     * so the pixels stay crisp).
+     *
+     * @param x the x-coordinate of the center of the rectangle
+     * @param y the y-coordinate of the center of the rectangle
+     * @param halfWidth one half the width of the rectangle
+     * @param halfHeight one half the height of the rectangle
+     * @param argb the pixels, in row-major order
+     * @param w the number of pixels in each row
+     * @param h the number of rows
+     * @throws IllegalArgumentException if <tt>w</tt> or <tt>h</tt> is not positive,
+     *         if <tt>argb</tt> has fewer than <tt>w*h</tt> entries, or if either half length is negative
+     */
+    public static void drawGrid(double x, double y, double halfWidth, double halfHeight, int[] argb, int w, int h) {
+        if (w < 1 || h < 1) throw new IllegalArgumentException("width and height must be positive");
+        if (argb.length < w*h) throw new IllegalArgumentException("need " + w*h + " pixels");
+        if (halfWidth < 0 || halfHeight < 0) throw new IllegalArgumentException("half lengths must be nonnegative");
+        if (gridImage == null || gridImage.getWidth() != w || gridImage.getHeight() != h)
+            gridImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) gridImage.getRaster().getDataBuffer()).getData();
+        System.arraycopy(argb, 0, pixels, 0, w*h);
+
+        int x0 = (int) Math.round(scaleX(x - halfWidth));
+        int y0 = (int) Math.round(scaleY(y + halfHeight));
+        int x1 = (int) Math.round(scaleX(x + halfWidth));
+        int y1 = (int) Math.round(scaleY(y - halfHeight));
+        Object interpolation = offscreen.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        offscreen.drawImage(gridImage, x0, y0, x1, y1, 0, 0, w, h, null);
+        if (interpolation != null) offscreen.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        draw();
+    }
+
 
    /***************************************************************************
     *  Drawing text.
@@ -1147,6 +1201,133 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     }
 
 
+    /**
+     * Returns the mouse button that was pressed most recently.
+     *
+     * @return one of <tt>MouseEvent.BUTTON1</tt>, <tt>BUTTON2</tt> or <tt>BUTTON3</tt>,
+     *         or <tt>MouseEvent.NOBUTTON</tt> if no button has been pressed yet
+     */
+    public static int mouseButton() {
+        synchronized (mouseLock) {
+            return mouseButton;
+        }
+    }
+
+    /**
+     * Returns the number of notches the mouse wheel has been rotated since the
+     * last call to this method, and starts counting again from zero.
+     *
+     * @return the number of notches; negative if the wheel was rotated
+     *         up (away from the user), positive if down
+     */
+    public static int mouseWheelRotation() {
+        synchronized (mouseLock) {
+            int rotation = mouseWheelRotation;
+            mouseWheelRotation = 0;
+            return rotation;
+        }
+    }
+
+
+    /**
+     * A mouse button press, release, drag or wheel rotation, as returned by
+     * <tt>nextMouseEvent()</tt>. The position is kept in pixels, because the scale
+     * may change between the event and the time it is handled, e.g. while the
+     * program is drawing a new picture that is not on screen yet. Use <tt>x()</tt>
+     * and <tt>y()</tt> to convert it with the scale of the picture that was shown.
+     */
+    public static final class MouseInput {
+        /** One of <tt>MouseEvent.MOUSE_PRESSED</tt>, <tt>MOUSE_RELEASED</tt>, <tt>MOUSE_DRAGGED</tt> or <tt>MOUSE_WHEEL</tt>. */
+        public final int id;
+        /** The button pressed or released, or <tt>MouseEvent.NOBUTTON</tt> for drags and wheel rotations. */
+        public final int button;
+        /** The number of notches the wheel was rotated (negative means up), or 0 if this is not a wheel rotation. */
+        public final int wheelRotation;
+        /** The position of the mouse, in pixels from the upper left corner of the canvas. */
+        public final int pixelX, pixelY;
+        // the canvas size when the event happened
+        private final int width, height;
+
+        private MouseInput(int id, int button, int wheelRotation, int pixelX, int pixelY, int width, int height) {
+            this.id = id;
+            this.button = button;
+            this.wheelRotation = wheelRotation;
+            this.pixelX = pixelX;
+            this.pixelY = pixelY;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Returns the x-coordinate of the mouse in the given x-scale (see <tt>setXscale()</tt>).
+         *
+         * @param  min the minimum value of the x-scale
+         * @param  max the maximum value of the x-scale
+         * @return the x-coordinate of the mouse
+         */
+        public double x(double min, double max) {
+            return min + pixelX * (max - min) / width;
+        }
+
+        /**
+         * Returns the y-coordinate of the mouse in the given y-scale (see <tt>setYscale()</tt>).
+         *
+         * @param  min the minimum value of the y-scale
+         * @param  max the maximum value of the y-scale
+         * @return the y-coordinate of the mouse
+         */
+        public double y(double min, double max) {
+            return max - pixelY * (max - min) / height;
+        }
+    }
+
+    /**
+     * Starts recording every mouse button press, release, drag and wheel rotation,
+     * so that none are missed between calls to <tt>nextMouseEvent()</tt>, however
+     * fast the mouse moves. Programs that only call <tt>mousePressed()</tt>,
+     * <tt>mouseX()</tt> and <tt>mouseY()</tt> don't need this.
+     */
+    public static void enableMouseEvents() {
+        synchronized (mouseLock) {
+            queueMouseEvents = true;
+        }
+    }
+
+    /**
+     * Waits for and returns the next mouse event, in the order they happened.
+     * Waiting uses no CPU time. Call <tt>enableMouseEvents()</tt> first.
+     *
+     * @return the next mouse event
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if <tt>enableMouseEvents()</tt> hasn't been called
+     */
+    public static MouseInput nextMouseEvent() throws InterruptedException {
+        synchronized (mouseLock) {
+            if (!queueMouseEvents) throw new IllegalStateException("call enableMouseEvents() first");
+            while (mouseEvents.isEmpty()) mouseLock.wait();
+            return mouseEvents.removeFirst();
+        }
+    }
+
+    /**
+     * Returns the next mouse event, without waiting.
+     *
+     * @return the next mouse event, or <tt>null</tt> if there isn't one
+     */
+    public static MouseInput pollMouseEvent() {
+        synchronized (mouseLock) {
+            return mouseEvents.isEmpty() ? null : mouseEvents.removeFirst();
+        }
+    }
+
+    // record a mouse event for nextMouseEvent(), if enabled. caller must hold mouseLock
+    private static void queueMouseEvent(MouseEvent e, int button, int wheelRotation) {
+        if (!queueMouseEvents) return;
+        mouseEvents.addLast(new MouseInput(e.getID(), button, wheelRotation, e.getX(), e.getY(), width, height));
+        mouseLock.notifyAll();
+    }
+
+
     /**
      * This method cannot be called directly.
      */
@@ -1173,7 +1354,9 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         synchronized (mouseLock) {
             mouseX = StdDraw.userX(e.getX());
             mouseY = StdDraw.userY(e.getY());
+            mouseButton = e.getButton();
             mousePressed = true;
+            queueMouseEvent(e, e.getButton(), 0);
         }
     }
 
@@ -1184,6 +1367,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
     public void mouseReleased(MouseEvent e) {
         synchronized (mouseLock) {
             mousePressed = false;
+            queueMouseEvent(e, e.getButton(), 0);
         }
     }
 
@@ -1195,6 +1379,7 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         synchronized (mouseLock) {
             mouseX = StdDraw.userX(e.getX());
             mouseY = StdDraw.userY(e.getY());
+            queueMouseEvent(e, MouseEvent.NOBUTTON, 0);
         }
     }
 
@@ -1209,6 +1394,19 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         }
     }
 
+    /**
+     * This method cannot be called directly.
+     */
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        synchronized (mouseLock) {
+            mouseX = StdDraw.userX(e.getX());
+            mouseY = StdDraw.userY(e.getY());
+            mouseWheelRotation += e.getWheelRotation();
+            queueMouseEvent(e, MouseEvent.NOBUTTON, e.getWheelRotation());
+        }
+    }
+
 
    /***************************************************************************
     *  Keyboard interactions.
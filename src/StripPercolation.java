@@ -0,0 +1,220 @@
+/** Class: StripPercolation.java
+ *
+ *  This class - Finds the clusters (groups of connected open sites) of an N x N grid whose open sites are all given at once,
+ *               and whether the grid percolates, using several threads.
+ *
+ *  Percolation.java opens sites one at a time, which is inherently sequential. When the whole configuration is known up front,
+ *  the grid can instead be split into horizontal strips of rows (domain decomposition):
+ *
+ *   1. In parallel, each strip links its own open sites with its own WeightedQuickUnionUF, which only one thread ever touches.
+ *   2. The strips are stitched together along the rows where they meet (Hoshen-Kopelman style). Only clusters that reach the first
+ *      or last row of a strip can be affected, so this step works on a small union-find with just 2 * N nodes per strip (one per
+ *      site in those two rows), and takes time proportional to N * (number of strips) rather than N * N.
+ *   3. In parallel again, each strip labels its sites, translating the clusters found in step 2.
+ *
+ *  Steps 1 and 3 do almost all the work, so the running time scales close to linearly with the number of cores.
+ */
+public class StripPercolation {
+	private final int n;
+	private final int[] labels;	//labels[iD] = ID of one particular site of the cluster containing site iD, or -1 if iD is blocked.
+	private final boolean percolates;
+	private int numberOfClusters;
+
+	/**
+	 * 3-arg constructor. Does all the work.
+	 * @param open which sites are open: site iD = (row - 1) * N + (col - 1) is open if bit (iD % 64) of open[iD / 64] is 1
+	 *        (the same layout as Percolation.snapshotOpen()).
+	 * @param N the number of rows (which is equal to the number of columns) for the square grid.
+	 * @param strips the number of strips (and threads) to use, between 1 and N.
+	 */
+	public StripPercolation(final long[] open, final int N, int strips) throws InterruptedException {
+		if (N <= 0) throw new java.lang.IllegalArgumentException("Cannot create grid with 0 or fewer rows / columns.");
+		if (strips <= 0 || strips > N) throw new java.lang.IllegalArgumentException("Number of strips must be between 1 and N.");
+		if (open.length < ((long) N * N + 63) / 64) throw new java.lang.IllegalArgumentException("Bitmap is too short for an N x N grid.");
+		n = N;
+		labels = new int[N * N];
+
+		/* Step 1: link the sites within each strip, in parallel. */
+		final Strip[] strip = new Strip[strips];
+		for (int s = 0; s < strips; s++) strip[s] = new Strip(s, (int) ((long) s * N / strips), (int) ((long) (s + 1) * N / strips));
+		runInParallel(strip, new Step() {
+			public void run(Strip s) { s.link(open); }
+		});
+
+		/* Step 2: stitch the strips together. Node s * 2N + c of the boundary union-find stands for the site in column c of the
+		 * first row of strip s, and node s * 2N + N + c for the site in column c of its last row. */
+		WeightedQuickUnionUF boundary = new WeightedQuickUnionUF(strips * 2 * N);
+		for (int s = 0; s < strips; s++) strip[s].linkBoundaryNodes(open, boundary);
+		for (int s = 0; s + 1 < strips; s++) {
+			for (int c = 0; c < N; c++) {
+				int upper = (strip[s].lastRow - 1) * N + c;	//last row of strip s
+				int lower = upper + N;						//first row of strip s + 1
+				if (isSet(open, upper) && isSet(open, lower)) boundary.union(s * 2 * N + N + c, (s + 1) * 2 * N + c);
+			}
+		}
+
+		/* Label each cluster that reaches a strip boundary with the site its boundary root stands for. Resolving all the roots now
+		 * means that step 3 only ever reads from this array, so no thread ever calls boundary.find() (which writes, see
+		 * WeightedQuickUnionUF.find()). */
+		final int[] boundaryLabel = new int[strips * 2 * N];
+		for (int b = 0; b < boundaryLabel.length; b++) {
+			int root = boundary.find(b);
+			int s = root / (2 * N);
+			int c = root % (2 * N);
+			boundaryLabel[b] = (c < N) ? strip[s].firstRow * N + c : (strip[s].lastRow - 1) * N + (c - N);
+		}
+
+		/* The grid percolates if a cluster containing a site in the top row also contains a site in the bottom row. */
+		boolean[] touchesTop = new boolean[strips * 2 * N];
+		for (int c = 0; c < N; c++) {
+			if (isSet(open, c)) touchesTop[boundary.find(c)] = true;
+		}
+		boolean spans = false;
+		for (int c = 0; c < N && !spans; c++) {
+			if (isSet(open, (N - 1) * N + c) && touchesTop[boundary.find((strips - 1) * 2 * N + N + c)]) spans = true;
+		}
+		percolates = spans;
+
+		/* Step 3: label every site, in parallel. */
+		runInParallel(strip, new Step() {
+			public void run(Strip s) { s.label(open, boundaryLabel); }
+		});
+		for (Strip s : strip) numberOfClusters += s.clusters;
+	}
+
+	/** One horizontal strip: rows firstRow to lastRow - 1 (0-based) of the grid. */
+	private class Strip {
+		final int index, firstRow, lastRow;
+		WeightedQuickUnionUF uf;	//node k stands for site firstRow * N + k
+		int[] boundaryNodeOfRoot;	//boundaryNodeOfRoot[root] = a boundary union-find node in the cluster with that local root, or -1
+		int clusters;				//number of clusters whose label is a site in this strip
+
+		Strip(int index, int firstRow, int lastRow) {
+			this.index = index;
+			this.firstRow = firstRow;
+			this.lastRow = lastRow;
+		}
+
+		// step 1: link every open site to its open neighbors to the east and to the south, within the strip
+		void link(long[] open) {
+			int offset = firstRow * n;
+			uf = new WeightedQuickUnionUF((lastRow - firstRow) * n);
+			for (int r = firstRow; r < lastRow; r++) {
+				for (int c = 0; c < n; c++) {
+					int iD = r * n + c;
+					if (!isSet(open, iD)) continue;
+					if (c < n - 1 && isSet(open, iD + 1)) uf.union(iD - offset, iD + 1 - offset);
+					if (r < lastRow - 1 && isSet(open, iD + n)) uf.union(iD - offset, iD + n - offset);
+				}
+			}
+		}
+
+		// step 2: link the boundary nodes of the sites in the first and last rows that are in the same cluster within the strip
+		void linkBoundaryNodes(long[] open, WeightedQuickUnionUF boundary) {
+			int offset = firstRow * n;
+			boundaryNodeOfRoot = new int[(lastRow - firstRow) * n];
+			java.util.Arrays.fill(boundaryNodeOfRoot, -1);
+			for (int c = 0; c < n; c++) {
+				this.linkBoundaryNode(open, boundary, firstRow * n + c, offset, index * 2 * n + c);
+				this.linkBoundaryNode(open, boundary, (lastRow - 1) * n + c, offset, index * 2 * n + n + c);
+			}
+		}
+
+		private void linkBoundaryNode(long[] open, WeightedQuickUnionUF boundary, int iD, int offset, int node) {
+			if (!isSet(open, iD)) return;
+			int root = uf.find(iD - offset);
+			if (boundaryNodeOfRoot[root] == -1) boundaryNodeOfRoot[root] = node;
+			else boundary.union(boundaryNodeOfRoot[root], node);
+		}
+
+		// step 3: label every site in the strip
+		void label(long[] open, int[] boundaryLabel) {
+			int offset = firstRow * n;
+			for (int iD = offset; iD < lastRow * n; iD++) {
+				if (!isSet(open, iD)) {
+					labels[iD] = -1;
+					continue;
+				}
+				int root = uf.find(iD - offset);
+				labels[iD] = (boundaryNodeOfRoot[root] == -1) ? root + offset : boundaryLabel[boundaryNodeOfRoot[root]];
+				if (labels[iD] == iD) clusters++;	//count each cluster once, at the site it is labeled with
+			}
+		}
+	}
+
+	/** One step of the algorithm, to be run for every strip. */
+	private interface Step {
+		void run(Strip s);
+	}
+
+	// run step for every strip, each one in its own thread, and wait for them all to finish
+	private static void runInParallel(Strip[] strips, final Step step) throws InterruptedException {
+		Thread[] threads = new Thread[strips.length];
+		for (int s = 0; s < strips.length; s++) {
+			final Strip strip = strips[s];
+			threads[s] = new Thread(new Runnable() {
+				public void run() { step.run(strip); }
+			});
+			threads[s].start();
+		}
+		for (Thread thread : threads) thread.join();
+	}
+
+	// is bit iD of bitmap set?
+	private static boolean isSet(long[] bitmap, int iD) {
+		return (bitmap[iD >>> 6] & (1L << iD)) != 0;
+	}
+
+	/**
+	 * Method: percolates
+	 * @return true if a cluster connects the top row to the bottom row.
+	 */
+	public boolean percolates() {
+		return percolates;
+	}
+
+	/**
+	 * Method: label
+	 * @param i the row location, between 1 and N.
+	 * @param j the column location, between 1 and N.
+	 * @return the cluster label of the site at the given location: the one-dimensional ID, (row - 1) * N + (col - 1), of one
+	 *         particular site of its cluster. Two open sites are connected if and only if they have the same label.
+	 *         -1 if the site is blocked.
+	 */
+	public int label(int i, int j) {
+		if (i < 1 || i > n || j < 1 || j > n) throw new java.lang.IndexOutOfBoundsException();
+		return labels[(i - 1) * n + (j - 1)];
+	}
+
+	/**
+	 * Method: numberOfClusters
+	 * @return the number of clusters of connected open sites.
+	 */
+	public int numberOfClusters() {
+		return numberOfClusters;
+	}
+
+	/**
+	 * Method: main
+	 *         Times the labeling of a random N x N grid (each site open with probability p) with 1 strip and with one strip per core.
+	 *         e.g. java StripPercolation 4000 0.6
+	 * @param args
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+		double p = (args.length > 1) ? Double.parseDouble(args[1]) : 0.5927;
+		long[] open = new long[(n * n + 63) / 64];
+		for (int iD = 0; iD < n * n; iD++) {
+			if (Math.random() < p) open[iD >>> 6] |= 1L << iD;
+		}
+
+		int cores = Math.min(n, Runtime.getRuntime().availableProcessors());
+		for (int strips : new int[] { 1, cores }) {
+			long startTime = System.currentTimeMillis();
+			StripPercolation sp = new StripPercolation(open, n, strips);
+			long endTime = System.currentTimeMillis();
+			System.out.printf("%s strip(s): %s clusters, %s. Elapsed time: %s millisecs\n", strips, sp.numberOfClusters(),
+					sp.percolates() ? "percolates" : "does not percolate", endTime - startTime);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ *  The <tt>UnionFind</tt> interface is implemented by the union-find data structures,
+ *  so that a client (such as Percolation.java) can pick whichever implementation
+ *  suits the number of objects it needs.
+ *  <p>
+ *  The objects are the integers 0 through N-1.
+ *  See WeightedQuickUnionUF.java for the general implementation and
+ *  ShortWeightedQuickUnionUF.java for a compact one for up to 32,767 objects.
+ */
+public interface UnionFind {
+
+    /**
+     * Returns the number of groups of Nodes (components).
+     * @return the number of components (between 1 and N)
+     */
+    int count();
+
+    /**
+     * Returns the number of objects in the component containing <tt>p</tt>.
+     * @param p the integer representing the Node (AKA site)
+     * @return the size of the component containing site <tt>p</tt> (between 1 and N)
+     * @throws java.lang.IndexOutOfBoundsException unless 0 <= p < N
+     */
+    int size(int p);
+
+    /**
+     * Returns the component identifier (AKA, the root) for the component containing <tt>p</tt>.
+     * @param p the integer representing the Node (AKA site)
+     * @return the component identifier (the "root") for the component containing site <tt>p</tt>
+     * @throws java.lang.IndexOutOfBoundsException unless 0 <= p < N
+     */
+    int find(int p);
+
+    /**
+     * Are the two sites <tt>p</tt> and <tt>q</tt> in the same component (AKA in the same group)?
+     * @param p the integer representing one site
+     * @param q the integer representing the other site
+     * @return <tt>true</tt> if the two sites are in the same component, and <tt>false</tt> otherwise
+     * @throws java.lang.IndexOutOfBoundsException unless both 0 <= p < N and 0 <= q < N
+     */
+    boolean connected(int p, int q);
+
+    /**
+     * Merges the component containing site <tt>p</tt> with the component containing site <tt>q</tt>.
+     * @param p the integer representing one site
+     * @param q the integer representing the other site
+     * @throws java.lang.IndexOutOfBoundsException unless both 0 <= p < N and 0 <= q < N
+     */
+    void union(int p, int q);
+
+    /**
+     * Merges the two components whose roots are <tt>rootP</tt> and <tt>rootQ</tt>, without walking up to the roots again.
+     * @param rootP the root of one component, i.e. find(rootP) == rootP
+     * @param rootQ the root of another component, i.e. find(rootQ) == rootQ and rootQ != rootP
+     * @return the root of the merged component (either <tt>rootP</tt> or <tt>rootQ</tt>)
+     * @throws java.lang.IndexOutOfBoundsException unless both 0 <= rootP < N and 0 <= rootQ < N
+     * @throws java.lang.IllegalArgumentException if rootP or rootQ is not a root, or if they are the same root
+     */
+    int unionRoots(int rootP, int rootQ);
+}
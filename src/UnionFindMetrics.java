@@ -0,0 +1,94 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Class: UnionFindMetrics.java
+ *
+ *  This class - Optional counters for the hot paths of the union find classes and Percolation.java:
+ *               how many steps each find() walks up the tree (as a histogram), how many of find()'s path halving writes
+ *               (parent[p] = parent[parent[p]]) actually change a link, how many union() calls merge two groups and how many
+ *               find the two sites already in the same group, and how many Percolation.linkTwoNodes() calls find the two
+ *               roots already equal.
+ *
+ *  The counters are off unless the JVM is started with -Dpercolation.metrics=true, e.g.
+ *  java -Dpercolation.metrics=true Percolation
+ *
+ *  ENABLED is a static final constant, and every call site is guarded by "if (UnionFindMetrics.ENABLED)", so when it is false
+ *  the JIT compiler removes the guarded code entirely and the hot paths run exactly as fast as without it.
+ *  The counters are thread safe, since e.g. StripPercolation.java runs union finds on several threads at once.
+ */
+public final class UnionFindMetrics {
+
+	public static final boolean ENABLED = Boolean.getBoolean("percolation.metrics");
+
+	/* findDepth[d] = the number of find() calls that walked d steps up the tree. The last bucket also counts all the longer walks. */
+	private static final int MAX_DEPTH = 32;
+	private static final AtomicLongArray findDepth = new AtomicLongArray(MAX_DEPTH + 1);
+	private static final LongAdder halvingWrites = new LongAdder();
+	private static final LongAdder unions = new LongAdder();
+	private static final LongAdder redundantUnions = new LongAdder();
+	private static final LongAdder redundantLinks = new LongAdder();
+
+	private UnionFindMetrics() { }	//not instantiable.
+
+	/**
+	 * Method: recordFind
+	 * @param depth the number of steps a find() call walked up the tree to reach the root.
+	 * @param writes the number of those steps whose path halving write changed a parent link.
+	 */
+	public static void recordFind(int depth, int writes) {
+		findDepth.incrementAndGet(Math.min(depth, MAX_DEPTH));
+		if (writes != 0) halvingWrites.add(writes);
+	}
+
+	/**
+	 * Method: recordUnion
+	 * @param merged true if the union() call merged two groups, false if both sites were already in the same group.
+	 */
+	public static void recordUnion(boolean merged) {
+		if (merged) unions.increment();
+		else redundantUnions.increment();
+	}
+
+	/**
+	 * Method: recordRedundantLink
+	 *         Counts a call to Percolation.linkTwoNodes() whose two sites were already in the same group.
+	 */
+	public static void recordRedundantLink() {
+		redundantLinks.increment();
+	}
+
+	/**
+	 * Method: reset
+	 *         Sets all the counters back to 0, e.g. between the warm up and the measured part of a benchmark.
+	 */
+	public static void reset() {
+		for (int d = 0; d <= MAX_DEPTH; d++) findDepth.set(d, 0);
+		halvingWrites.reset();
+		unions.reset();
+		redundantUnions.reset();
+		redundantLinks.reset();
+	}
+
+	/**
+	 * Method: print
+	 *         Prints all the counters, and the find() depth histogram, to standard output.
+	 */
+	public static void print() {
+		long finds = 0, steps = 0;
+		for (int d = 0; d <= MAX_DEPTH; d++) {
+			finds += findDepth.get(d);
+			steps += d * findDepth.get(d);
+		}
+		System.out.printf("find() calls: %s, average depth %.3f, path halving writes: %s\n",
+				finds, finds == 0 ? 0.0 : steps / (double) finds, halvingWrites.sum());
+		System.out.printf("union() calls: %s merged, %s already connected. Redundant linkTwoNodes() calls: %s\n",
+				unions.sum(), redundantUnions.sum(), redundantLinks.sum());
+		System.out.println("find() depth histogram:");
+		for (int d = 0; d <= MAX_DEPTH; d++) {
+			long calls = findDepth.get(d);
+			if (calls != 0) {
+				System.out.printf("%4s%s %12s  (%.2f%%)\n", d, d == MAX_DEPTH ? "+" : " ", calls, 100.0 * calls / finds);
+			}
+		}
+	}
+}
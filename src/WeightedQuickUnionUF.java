@@ -21,13 +21,15 @@
  *  logarithmic time (in the worst case) and <em>count</em> takes constant
  *  time.
  *  <p>
+ *  For up to 32,767 objects, ShortWeightedQuickUnionUF.java does the same in half the memory.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/15uf">Section 1.5</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
  *  @author Robert Sedgewick
  *  @author Kevin Wayne
  */
-public class WeightedQuickUnionUF {
+public class WeightedQuickUnionUF implements UnionFind {
     private int[] parent;   // parent[i] = parent of i
     private int[] size;     // size[i] = number of objects in subtree rooted at i
     private int count;      // number of groups of nodes. (nodes that are grouped together)
@@ -74,6 +76,17 @@ public class WeightedQuickUnionUF {
         return count;
     }
 
+    /**
+     * Returns the number of objects in the component containing <tt>p</tt>.
+     * If <tt>p</tt> is a root, this is a single array lookup, since the size array is kept up to date for the roots.
+     * @param p the integer representing the Node (AKA site)
+     * @return the size of the component containing site <tt>p</tt> (between 1 and N)
+     * @throws java.lang.IndexOutOfBoundsException unless 0 <= p < N
+     */
+    public int size(int p) {
+        return size[find(p)];
+    }
+
     /**
      * Returns the component identifier (AKA, the root) for the component containing <tt>p</tt>.
      * @param p the integer representing the Node (AKA site)
@@ -82,6 +95,7 @@ public class WeightedQuickUnionUF {
      */
     public int find(int p) {
         validate(p);	//custom method to validate that 0 <= p < N, where N is the total number of nodes.
+        int depth = 0, writes = 0;	//only counted when UnionFindMetrics.ENABLED. See UnionFindMetrics.java.
 
         while (p != parent[p])	//do this while loop as long as p is not its own parent. This effectively moves "up the tree" of nodes until we find the root.
         {
@@ -123,10 +137,15 @@ public class WeightedQuickUnionUF {
         	 * Then this while loop ends because p = parent[p] (p = 3, and parent[p] = 3 also), meaning we found our root.
         	 *
         	 **/
+        	if (UnionFindMetrics.ENABLED) {
+        		depth++;
+        		if (parent[p] != parent[parent[p]]) writes++;
+        	}
         	parent[p] = parent[parent[p]];
         	p = parent[p];
         }
         //end while
+        if (UnionFindMetrics.ENABLED) UnionFindMetrics.recordFind(depth, writes);
         return p;	//return the root
     }
 
@@ -161,18 +180,43 @@ public class WeightedQuickUnionUF {
     public void union(int p, int q) {
         int rootP = find(p);
         int rootQ = find(q);
-        if (rootP == rootQ) return;	//if their roots are the same, it means they are already in the same group. So do nothing
+        if (rootP == rootQ) {	//if their roots are the same, it means they are already in the same group. So do nothing
+            if (UnionFindMetrics.ENABLED) UnionFindMetrics.recordUnion(false);
+            return;
+        }
+        unionRoots(rootP, rootQ);
+    }
+
+    /**
+     * Merges the two components whose roots are <tt>rootP</tt> and <tt>rootQ</tt>, without walking up to the roots again.
+     * For a client that already found both roots (such as Percolation.java), this saves the two find() calls in union(),
+     * and the find() call that would otherwise be needed afterwards to learn the root of the merged component.
+     * @param rootP the root of one component, i.e. find(rootP) == rootP
+     * @param rootQ the root of another component, i.e. find(rootQ) == rootQ and rootQ != rootP
+     * @return the root of the merged component (either <tt>rootP</tt> or <tt>rootQ</tt>)
+     * @throws java.lang.IndexOutOfBoundsException unless both 0 <= rootP < N and 0 <= rootQ < N
+     * @throws java.lang.IllegalArgumentException if rootP or rootQ is not a root, or if they are the same root
+     */
+    public int unionRoots(int rootP, int rootQ) {
+        validate(rootP);
+        validate(rootQ);
+        if (parent[rootP] != rootP || parent[rootQ] != rootQ || rootP == rootQ) {
+            throw new IllegalArgumentException("sites " + rootP + " and " + rootQ + " are not two different roots");
+        }
+        if (UnionFindMetrics.ENABLED) UnionFindMetrics.recordUnion(true);
 
         // make smaller-sized group join the larger one. This allows for much better efficiency when doing find() operations.
+        count--;							//Decrement total number of components (groups) because one group is about to join the other one.
         if (size[rootP] < size[rootQ]) {	//if rootP's group has fewer nodes than rootQ's group..
             parent[rootP] = rootQ;			//set rootP's parent to rootQ
             size[rootQ] += size[rootP];		//and update the size of rootQ
+            return rootQ;
         }
         else {								//Else, vice versa....
             parent[rootQ] = rootP;
             size[rootP] += size[rootQ];
+            return rootP;
         }
-        count--;							//Decrement total number of components (groups) because one group just joined the other one.
     }
 
 
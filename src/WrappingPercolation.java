@@ -0,0 +1,255 @@
+/** Class: WrappingPercolation.java
+ *
+ *  This class - Same as Percolation.java, except that the N x N grid has periodic boundary conditions: it wraps around like a torus,
+ *               so the sites in the top row are adjacent to those in the bottom row, and the sites in the leftmost column are adjacent
+ *               to those in the rightmost column. There are no edges, so every site has exactly 4 neighbors. This removes the edge
+ *               effects that make the threshold measured on small grids differ from the N -> infinity value, so smaller, cheaper grids
+ *               can be used.
+ *
+ *  On a torus, a cluster can't connect the top row to the bottom row in the usual sense, since every cluster touches itself across the
+ *  "seam". Instead, the grid percolates when some cluster WRAPS around it: it contains a closed path that goes all the way around the
+ *  torus. That is detected with a union-find that also tracks displacements (Newman and Ziff, Phys. Rev. E 64, 016706, 2001):
+ *
+ *    Every site stores the (row, col) displacement from itself to its parent, as if the grid were NOT wrapped. So the displacement from
+ *    a site to its root is the sum along the path. When two sites of the SAME cluster become adjacent, the displacement between them
+ *    found via the root should just be the one step between them. If it differs by N rows (or N columns), then the two paths from
+ *    the root reach the same site by going around the torus: the cluster wraps vertically (or horizontally).
+ *
+ *  percolates() reports vertical wrapping, which is the periodic counterpart of connecting the top row to the bottom row.
+ */
+public class WrappingPercolation implements PercolationModel {
+	private boolean[] gridIsOpen;
+	private int n, nTimesN;
+	private int numberOfOpenSites;
+
+	/* Weighted quick union with path compression, as in WeightedQuickUnionUF.java, plus displacements.
+	 * rowStep[i] and colStep[i] = displacement from site i to parent[i]. wrapsVertically[] and wrapsHorizontally[]
+	 * are only up to date for ROOT IDs, like the boolean arrays in Percolation.java. */
+	private int[] parent, size, rowStep, colStep;
+	private boolean[] wrapsVertically, wrapsHorizontally;
+	private boolean anyWrapsVertically, anyWrapsHorizontally;
+	private int foundRowStep, foundColStep;	//displacement from the site passed to the latest find() call to its root
+
+	/**
+	 * 1-arg constructor.
+	 * @param N the number of rows (which is equal to the number of columns) for the square grid.
+	 */
+	public WrappingPercolation(int N) {
+		if (N <= 0) {
+			throw new java.lang.IllegalArgumentException("Cannot create grid with 0 or fewer rows / columns.");
+		}
+		n = N;
+		nTimesN = n*n;
+		gridIsOpen = new boolean[nTimesN];
+		parent = new int[nTimesN];
+		size = new int[nTimesN];
+		rowStep = new int[nTimesN];
+		colStep = new int[nTimesN];
+		wrapsVertically = new boolean[nTimesN];
+		wrapsHorizontally = new boolean[nTimesN];
+		for (int i = 0; i < nTimesN; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+	}
+
+	private boolean withinPrescribedRange(int x) {
+		return x >= 1 && x <= n;
+	}
+
+	/**
+	 * Method: open
+	 *         Opens the grid located at (row, col), and links it to each of its 4 neighbors (wrapping around the edges) that is open.
+	 * @param i the row number, between 1 and N.
+	 * @param j the col number, between 1 and N.
+	 */
+	public void open(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j))) {
+			throw new java.lang.IndexOutOfBoundsException();
+		}
+		int iIndex = i - 1;
+		int jIndex = j - 1;
+		int iD = iIndex * n + jIndex;
+		if (gridIsOpen[iD]) return;
+		gridIsOpen[iD] = true;
+		numberOfOpenSites++;
+
+		/* Neighbors, wrapping around the edges. The last two arguments are the step from this site to the neighbor. */
+		int southIndex = (iIndex == n - 1) ? 0 : iIndex + 1;
+		int northIndex = (iIndex == 0) ? n - 1 : iIndex - 1;
+		int westIndex = (jIndex == 0) ? n - 1 : jIndex - 1;
+		int eastIndex = (jIndex == n - 1) ? 0 : jIndex + 1;
+		this.linkIfOpen(iD, southIndex * n + jIndex, 1, 0);
+		this.linkIfOpen(iD, northIndex * n + jIndex, -1, 0);
+		this.linkIfOpen(iD, iIndex * n + westIndex, 0, -1);
+		this.linkIfOpen(iD, iIndex * n + eastIndex, 0, 1);
+	}
+
+	/**
+	 * Method: linkIfOpen
+	 *         Links two adjacent sites if the neighbor is open, and checks whether this makes the cluster wrap around.
+	 * @param id A given node, which is open.
+	 * @param neighborID An adjacent node.
+	 * @param rowsToNeighbor the number of rows (-1, 0 or 1) from id to neighborID, not wrapped.
+	 * @param colsToNeighbor the number of columns (-1, 0 or 1) from id to neighborID, not wrapped.
+	 */
+	private void linkIfOpen(int id, int neighborID, int rowsToNeighbor, int colsToNeighbor) {
+		if (!gridIsOpen[neighborID]) return;
+		int thisRootID = this.find(id);
+		int thisRowStep = foundRowStep, thisColStep = foundColStep;
+		int neighborsRootID = this.find(neighborID);
+
+		/* Displacement from the neighbor's root to this root, going root -> neighbor -> (one step) -> id -> root. */
+		int rowsBetweenRoots = thisRowStep + rowsToNeighbor - foundRowStep;
+		int colsBetweenRoots = thisColStep + colsToNeighbor - foundColStep;
+
+		if (thisRootID == neighborsRootID) {
+			/* Same cluster. Going around the loop we just closed should bring us back to where we started (0 rows, 0 cols). If it
+			 * doesn't, the loop goes around the torus. n == 1 is a special case: the site is its own neighbor, 1 step away. */
+			if (rowsBetweenRoots != 0 || (n == 1 && rowsToNeighbor != 0)) {
+				wrapsVertically[thisRootID] = true;
+				anyWrapsVertically = true;
+			}
+			if (colsBetweenRoots != 0 || (n == 1 && colsToNeighbor != 0)) {
+				wrapsHorizontally[thisRootID] = true;
+				anyWrapsHorizontally = true;
+			}
+			return;
+		}
+
+		/* Different clusters: smaller one joins the larger one, as in WeightedQuickUnionUF.union(). */
+		if (size[neighborsRootID] <= size[thisRootID]) {
+			parent[neighborsRootID] = thisRootID;
+			rowStep[neighborsRootID] = rowsBetweenRoots;
+			colStep[neighborsRootID] = colsBetweenRoots;
+			size[thisRootID] += size[neighborsRootID];
+			wrapsVertically[thisRootID] |= wrapsVertically[neighborsRootID];
+			wrapsHorizontally[thisRootID] |= wrapsHorizontally[neighborsRootID];
+		}
+		else {
+			parent[thisRootID] = neighborsRootID;
+			rowStep[thisRootID] = -rowsBetweenRoots;
+			colStep[thisRootID] = -colsBetweenRoots;
+			size[neighborsRootID] += size[thisRootID];
+			wrapsVertically[neighborsRootID] |= wrapsVertically[thisRootID];
+			wrapsHorizontally[neighborsRootID] |= wrapsHorizontally[thisRootID];
+		}
+	}
+
+	/**
+	 * Method: find
+	 *         Returns the root of the given site, and sets foundRowStep and foundColStep to the displacement from the site to the root.
+	 *         Compresses the path on the way: every site on it is made to point straight at the root, with its displacement updated to match.
+	 * @param p A given node.
+	 * @return the root of p.
+	 */
+	private int find(int p) {
+		/* First pass: find the root, adding up the displacements. */
+		int root = p;
+		int rows = 0, cols = 0;
+		while (root != parent[root]) {
+			rows += rowStep[root];
+			cols += colStep[root];
+			root = parent[root];
+		}
+		foundRowStep = rows;
+		foundColStep = cols;
+
+		/* Second pass: point every site on the path straight at the root. */
+		while (p != root) {
+			int next = parent[p];
+			int nextRows = rows - rowStep[p], nextCols = cols - colStep[p];	//displacement from next to the root
+			parent[p] = root;
+			rowStep[p] = rows;
+			colStep[p] = cols;
+			p = next;
+			rows = nextRows;
+			cols = nextCols;
+		}
+		return root;
+	}
+
+	public boolean isOpen(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j)))
+			throw new java.lang.IndexOutOfBoundsException();
+		return this.gridIsOpen[(i - 1) * n + (j - 1)];
+	}
+
+	/**
+	 * Method: isFull
+	 * @param i the row location.
+	 * @param j the column location.
+	 * @return true if the site at the given location is open and in a cluster that wraps around the grid vertically.
+	 *         There is no top row on a torus, so this is the periodic counterpart of being connected to the top.
+	 */
+	public boolean isFull(int i, int j)
+	{
+		if (!(this.withinPrescribedRange(i) && this.withinPrescribedRange(j))) throw new java.lang.IndexOutOfBoundsException();
+		int iD = (i - 1) * n + (j - 1);
+		return this.gridIsOpen[iD] && wrapsVertically[this.find(iD)];
+	}
+
+	/**
+	 * Method: percolates
+	 * @return true if some cluster wraps around the grid vertically.
+	 */
+	public boolean percolates()
+	{
+		return anyWrapsVertically;
+	}
+
+	/**
+	 * Method: wrapsHorizontally
+	 * @return true if some cluster wraps around the grid horizontally.
+	 */
+	public boolean wrapsHorizontally()
+	{
+		return anyWrapsHorizontally;
+	}
+
+	/**
+	 * Method: numberOfOpenSites
+	 * @return the number of sites opened so far.
+	 */
+	public int numberOfOpenSites() {
+		return numberOfOpenSites;
+	}
+
+	/**
+	 * Method: main (optional, for testing).
+	 *         Measures the threshold T times on an N x N torus and on an ordinary N x N grid, using the same site order for both,
+	 *         to show how much closer the torus gets to the N -> infinity threshold (about 0.592746) on small grids.
+	 *         e.g. java WrappingPercolation 16 10000
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 16;
+		int t = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+		double wrappingSum = 0, ordinarySum = 0;
+		int[] order = new int[n * n];
+		java.util.Random random = new java.util.Random();
+		for (int trial = 0; trial < t; trial++) {
+			/* Random order of sites (Fisher-Yates shuffle). */
+			for (int k = 0; k < order.length; k++) order[k] = k;
+			for (int k = order.length - 1; k > 0; k--) {
+				int r = random.nextInt(k + 1);
+				int temp = order[k];
+				order[k] = order[r];
+				order[r] = temp;
+			}
+
+			WrappingPercolation wp = new WrappingPercolation(n);
+			for (int k = 0; !wp.percolates(); k++) wp.open(order[k] / n + 1, order[k] % n + 1);
+			wrappingSum += wp.numberOfOpenSites() / (double) (n * n);
+
+			Percolation p = new Percolation(n);
+			int numOfOpenGrids = 0;
+			for (int k = 0; !p.percolates(); k++, numOfOpenGrids++) p.open(order[k] / n + 1, order[k] % n + 1);
+			ordinarySum += numOfOpenGrids / (double) (n * n);
+		}
+		System.out.printf("Mean threshold over %s trials on a %s x %s torus: %s\n", t, n, n, wrappingSum / t);
+		System.out.printf("Mean threshold over %s trials on a %s x %s grid:  %s\n", t, n, n, ordinarySum / t);
+	}
+}